@@ -0,0 +1,71 @@
+package Benchmarks;
+
+import Engine.GameEngine;
+import Model.Board;
+import Model.GameModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+//the collision lookup a move makes and food placement, which takes a cell from the board's list of free cells,
+//so it should cost the same however much of the board the snakes cover
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BoardBenchmark {
+    @Param({"8", "48"})
+    public int length;
+    @Param({"50", "200"})
+    public int boardSize;
+
+    private Board board;
+    private GameEngine engine;
+    private int[] probes;
+    private int next;
+
+    @Setup
+    public void setup() {
+        GameModel model = new GameModel();
+        board = new Board(boardSize, boardSize);
+        model.setBoard(board);
+        //one snake per row fills the board as far as the length allows
+        model.initialiseSnake(length, length - 1, 0);
+        for (int row = 1; row < boardSize; row++) {
+            GameModel other = new GameModel();
+            other.setBoard(board);
+            other.initialiseSnake(length, length - 1, row);
+        }
+        engine = new GameEngine(model, new Random(1));
+        Random random = new Random(2);
+        probes = new int[1024];
+        for (int i = 0; i < probes.length; i++) {
+            probes[i] = GameModel.pack(random.nextInt(boardSize), random.nextInt(boardSize));
+        }
+    }
+
+    @Benchmark
+    public boolean collision() {
+        next = (next + 1) & (probes.length - 1);
+        return board.isOccupied(GameModel.cellX(probes[next]), GameModel.cellY(probes[next]));
+    }
+
+    @Benchmark
+    public int placeFood() {
+        engine.placeFood();
+        return engine.getFoodX();
+    }
+}
@@ -0,0 +1,69 @@
+package Benchmarks;
+
+import Controller.MessageType;
+import Controller.Packet;
+import Controller.PacketCodec;
+import Controller.StateSync;
+import Model.Board;
+import Model.GameModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+//encoding and decoding the datagram sent every tick, a full snapshot grows with the snake, a delta does not
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CodecBenchmark {
+    @Param({"8", "48"})
+    public int length;
+    @Param({"SNAPSHOT", "DELTA"})
+    public MessageType type;
+
+    private final PacketCodec codec = new PacketCodec();
+    private final StateSync sync = new StateSync();
+    private GameModel model;
+    private byte[] encoded;
+
+    @Setup
+    public void setup() {
+        model = new GameModel();
+        model.setBoard(new Board(64, 64));
+        model.initialiseSnake(length, length - 1, 10);
+        model.setIsStart(true);
+        sync.start(model);
+        //the client is one tick behind, the usual case for a delta
+        model.updateSnake(64, 64);
+        sync.record(model);
+        sync.acknowledge(0);
+        model.updateSnake(64, 64);
+        sync.record(model);
+        ByteBuffer data = encode();
+        encoded = new byte[data.remaining()];
+        data.get(encoded);
+    }
+
+    @Benchmark
+    public ByteBuffer encode() {
+        return codec.encode(type, 1, sync.write(type, model, 3, 4));
+    }
+
+    @Benchmark
+    public Packet decode() {
+        return PacketCodec.decode(encoded, 0, encoded.length);
+    }
+}
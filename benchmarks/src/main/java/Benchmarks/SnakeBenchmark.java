@@ -0,0 +1,76 @@
+package Benchmarks;
+
+import Engine.GameEngine;
+import Model.Board;
+import Model.Direction;
+import Model.GameModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+//one move of a snake, alone and with the engine around it (eating check, collision, scoring),
+//the snake runs round the edge of the board forever so every invocation is a normal move
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SnakeBenchmark {
+    @Param({"8", "48"})
+    public int length;
+    @Param({"50", "200"})
+    public int boardSize;
+
+    private GameModel model;
+    private GameEngine engine;
+
+    @Setup
+    public void setup() {
+        model = new GameModel();
+        model.setBoard(new Board(boardSize, boardSize));
+        //the body lies along the top edge, which is where the loop starts
+        model.initialiseSnake(length, length - 1, 0);
+        model.setIsStart(true);
+        engine = new GameEngine(model, new Random(1));
+        //food in the middle of the loop is never reached, so the length stays the same
+        engine.setFood(boardSize / 2, boardSize / 2);
+    }
+
+    @Benchmark
+    public GameModel updateSnake() {
+        turnAtCorner();
+        model.updateSnake(boardSize, boardSize);
+        return model;
+    }
+
+    @Benchmark
+    public boolean engineStep() {
+        turnAtCorner();
+        return engine.step();
+    }
+
+    private void turnAtCorner() {
+        Direction direction = model.getDirection();
+        if (direction == Direction.RIGHT && model.getHeadX() == boardSize - 1) {
+            model.setDirection(Direction.DOWN);
+        } else if (direction == Direction.DOWN && model.getHeadY() == boardSize - 1) {
+            model.setDirection(Direction.LEFT);
+        } else if (direction == Direction.LEFT && model.getHeadX() == 0) {
+            model.setDirection(Direction.UP);
+        } else if (direction == Direction.UP && model.getHeadY() == 0) {
+            model.setDirection(Direction.RIGHT);
+        }
+    }
+}
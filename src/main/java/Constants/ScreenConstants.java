@@ -0,0 +1,24 @@
+package Constants;
+
+import javafx.stage.Screen;
+
+import java.lang.Math;
+
+//sizes of the game window, they need a display, so only the view and the controllers that drive it read them
+public class ScreenConstants {
+    private ScreenConstants(){}
+    //define the game screen size based on the screen size with a percentage, so the game fits both big and small screens
+    public static final double screenWidth = Screen.getPrimary().getVisualBounds().getWidth();
+    //public static getWidth method, return default value
+    //set default static non-final value here, static set method, 0,0, update in ini file
+    //snake model should not care about view, independent of view
+    public static final double screenHeight =  Screen.getPrimary().getVisualBounds().getHeight();
+    public static final int grid = (int) (Math.min(screenWidth, screenHeight)*0.8/GameConstants.num);//size of each cell
+
+    //define game border and panel border
+    public static final int gameWidth = grid * GameConstants.num;
+    public static final int gameHeight = gameWidth;
+    public static final int gameUpBorder = (int) (gameWidth*0.1);//space to show current score and best score
+    public static final int panelWidth = gameWidth;
+    public static final int panelHeight = gameHeight + gameUpBorder;
+}
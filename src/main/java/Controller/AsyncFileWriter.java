@@ -0,0 +1,172 @@
+package Controller;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+//small files saved by one background thread, so a game tick never waits on the disk: a save only hands over
+//the content, saves of the same file made before the thread gets to it are merged into the latest one, and the
+//file is written next to its target and renamed over it, so a reader sees either the old or the new content
+public class AsyncFileWriter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsyncFileWriter.class);
+    private final ExecutorService executor;
+    private final ConcurrentHashMap<File, Supplier<String>> pending = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<File, Appends> appends = new ConcurrentHashMap<>();
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicBoolean used = new AtomicBoolean();
+
+    public AsyncFileWriter() {
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "file-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void save(File file, String content) {
+        save(file, () -> content);
+    }
+
+    //the content is produced on the writer thread, so it may read the file it replaces
+    public void save(final File file, Supplier<String> content) {
+        if (file == null) {
+            return;
+        }
+        flushOnExit();
+        if (pending.put(file, content) == null) {
+            //nothing was waiting for this file, so no write of it is queued yet
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    write(file);
+                }
+            });
+        }
+    }
+
+    //adds the text to the end of the file, texts appended before the thread gets to them are written together
+    public void append(File file, String text) {
+        append(file, text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    //the bytes must not be changed once they are handed over
+    public void append(final File file, byte[] bytes) {
+        if (file == null) {
+            return;
+        }
+        flushOnExit();
+        final Appends queued = appends.computeIfAbsent(file, key -> new Appends());
+        queued.texts.add(bytes);
+        if (queued.size.getAndIncrement() == 0) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    append(file, queued);
+                }
+            });
+        }
+    }
+
+    private void flushOnExit() {
+        if (used.compareAndSet(false, true)) {
+            //the thread is a daemon, whatever is still waiting is written before the application exits
+            Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    flush();
+                }
+            }));
+        }
+    }
+
+    //waits until every save made so far is on disk
+    public void flush() {
+        try {
+            Future<?> done = executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                }
+            });
+            done.get(5, TimeUnit.SECONDS);
+        } catch (Exception exception) {
+            LOGGER.error("Saving files did not finish: {}", exception.getMessage());
+        }
+    }
+
+    public long getWrites() {
+        return writes.get();
+    }
+
+    private void append(File file, Appends queued) {
+        //keeps going until no text is left, a text queued meanwhile did not schedule a write of its own
+        int written;
+        do {
+            written = 0;
+            ByteArrayOutputStream text = new ByteArrayOutputStream();
+            byte[] next;
+            while ((next = queued.texts.poll()) != null) {
+                text.write(next, 0, next.length);
+                written++;
+            }
+            try (OutputStream stream = new FileOutputStream(file, true)) {
+                text.writeTo(stream);
+                writes.incrementAndGet();
+            } catch (IOException exception) {
+                LOGGER.error("Cannot append to {}: {}", file.getName(), exception.getMessage());
+            }
+        } while (queued.size.addAndGet(-written) > 0);
+    }
+
+    private void write(File file) {
+        Supplier<String> content = pending.remove(file);
+        if (content == null) {
+            return;
+        }
+        Path target = file.getAbsoluteFile().toPath();
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(target.getParent(), file.getName(), ".tmp");
+            Files.write(temp, content.get().getBytes(StandardCharsets.UTF_8));
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException exception) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            writes.incrementAndGet();
+        } catch (IOException | RuntimeException exception) {
+            LOGGER.error("Cannot save {}: {}", file.getName(), exception.getMessage());
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    //texts waiting to be appended to one file, size counts them so only the first one schedules a write
+    private static class Appends {
+        private final ConcurrentLinkedQueue<byte[]> texts = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+    }
+}
@@ -0,0 +1,63 @@
+package Controller;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+//fixed number of reusable datagram buffers shared between threads without locks: a buffer is taken by
+//swapping its slot to null and given back by filling an empty slot, so the steady state allocates no buffers
+public class BufferPool {
+    private final AtomicReferenceArray<ByteBuffer> slots;
+    private final int size;
+    private final boolean direct;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();//acquires that found the pool empty and allocated
+    private final LongAdder dropped = new LongAdder();//releases that found the pool full
+
+    public BufferPool(int capacity, int size, boolean direct) {
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.size = size;
+        this.direct = direct;
+    }
+
+    public ByteBuffer acquire() {
+        //start from a different slot on each thread so acquiring threads do not all fight over the first one
+        int start = (int) (Thread.currentThread().getId() % slots.length());
+        for (int i = 0; i < slots.length(); i++) {
+            int index = (start + i) % slots.length();
+            if (slots.get(index) != null) {
+                ByteBuffer buffer = slots.getAndSet(index, null);
+                if (buffer != null) {
+                    hits.increment();
+                    buffer.clear();
+                    return buffer;
+                }
+            }
+        }
+        misses.increment();
+        return direct ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
+    }
+
+    public void release(ByteBuffer buffer) {
+        int start = (int) (Thread.currentThread().getId() % slots.length());
+        for (int i = 0; i < slots.length(); i++) {
+            int index = (start + i) % slots.length();
+            if (slots.get(index) == null && slots.compareAndSet(index, null, buffer)) {
+                return;
+            }
+        }
+        dropped.increment();//left to the garbage collector
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+}
@@ -1,6 +1,7 @@
 package Controller;
 
 import Constants.GameConstants;
+import Metrics.Trace;
 import Model.Direction;
 import Model.GameModel;
 import javafx.event.EventHandler;
@@ -8,152 +9,376 @@ import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
 import lombok.Getter;
 import lombok.Setter;
-import org.apache.commons.lang3.SerializationUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.net.DatagramPacket;
 import java.net.DatagramSocket;
 import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.regex.Pattern;
 
 @Getter
 @Setter
 public class ClientController extends GameController {
     private static final Logger LOGGER = LoggerFactory.getLogger(ClientController.class);
-    private static byte[] senName = new byte[GameConstants.longPacketLength];
-    private static byte[] senLevel = new byte[GameConstants.shortPacketLength];
-    private static byte[] senDir = new byte[GameConstants.shortPacketLength];
-    private static DatagramSocket socket;
+    private DatagramSocket socket;
+    private static final int INPUT_HISTORY = 64;//turns waiting for confirmation, must be a power of two
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private PacketCodec codec = new PacketCodec();
+    private BufferPool pool = new BufferPool(2, GameConstants.maxPacketLength, false);//receive buffers, a snapshot may fill a whole datagram
+    private DatagramPacket sendPacket;//reused for every datagram to the server, guarded by the codec
+    private int token;//session token handed out by the server, 0 until it welcomes this client
+    private TickScheduler scheduler = new TickScheduler(1);
+    private GameModel confirmed = new GameModel();//last state the server confirmed, the local snake runs ahead of it
+    private int tick = -1;//last server tick applied to the confirmed snake
+    private boolean finished;//the server reported the game over, states still on the way are ignored
+    private int localTick = -1;//tick the local snake has been predicted to
+    private int inputSequence;//number of the last turn sent to the server
+    private final int[] inputSequences = new int[INPUT_HISTORY];
+    private final Direction[] inputDirections = new Direction[INPUT_HISTORY];
+    private final int[] inputTicks = new int[INPUT_HISTORY];//local tick each unconfirmed turn was predicted from
+    private int inputFirst;
+    private int inputCount;
+    private int[] shown = new int[0];//cells of the local snake before reconciling, to repaint only on a misprediction
+    private List<Leaderboard.Entry> leaders = new ArrayList<>();//best games of the level, sent when the game ends
 
     private EventHandler<KeyEvent> keyEventHandler = new EventHandler<KeyEvent>() {
         @Override
         public void handle(KeyEvent event) {
             KeyCode keyCode = event.getCode();
-            Direction direction = models.get(0).getLastDirection();
-            //user cannot directly change the direction to its opposite
-            if (keyCode == KeyCode.UP && direction != Direction.DOWN) {
-                senDir[0] = 0;
-                models.get(0).setDirection(Direction.UP);
+            if (keyCode == KeyCode.UP) {
+                turn(Direction.UP);
             }
-            if (keyCode == KeyCode.DOWN && direction != Direction.UP) {
-                senDir[0] = 1;
-                models.get(0).setDirection(Direction.DOWN);
+            if (keyCode == KeyCode.DOWN) {
+                turn(Direction.DOWN);
             }
-            if (keyCode == KeyCode.LEFT && direction != Direction.RIGHT) {
-                senDir[0] = 2;
-                models.get(0).setDirection(Direction.LEFT);
+            if (keyCode == KeyCode.LEFT) {
+                turn(Direction.LEFT);
             }
-            if (keyCode == KeyCode.RIGHT && direction != Direction.LEFT) {
-                senDir[0] = 3;
-                models.get(0).setDirection(Direction.RIGHT);
+            if (keyCode == KeyCode.RIGHT) {
+                turn(Direction.RIGHT);
             }
-            sendToServer(MessageType.DIRECTION, senDir);
         }
     };//change the direction of the snake based on the keyboard input
 
+    public synchronized void turn(Direction turn) {
+        Direction direction = models.get(0).getLastDirection();
+        //user cannot directly change the direction to its opposite
+        if ((turn == Direction.UP && direction == Direction.DOWN) || (turn == Direction.DOWN && direction == Direction.UP)
+                || (turn == Direction.LEFT && direction == Direction.RIGHT) || (turn == Direction.RIGHT && direction == Direction.LEFT)) {
+            return;
+        }
+        //the turn is predicted from the next local tick on and kept until the server confirms it
+        inputSequence = inputSequence + 1;
+        if (inputCount == INPUT_HISTORY) {
+            inputFirst = inputFirst + 1;
+            inputCount = inputCount - 1;
+        }
+        int slot = (inputFirst + inputCount) & (INPUT_HISTORY - 1);
+        inputSequences[slot] = inputSequence;
+        inputDirections[slot] = turn;
+        inputTicks[slot] = localTick + 1;
+        inputCount = inputCount + 1;
+        models.get(0).setDirection(turn);
+        Trace.event(Trace.Kind.TURN, turn.ordinal(), inputSequence);
+        sendToServer(MessageType.DIRECTION, PacketCodec.fields(turn.ordinal(), inputSequence));
+    }
+
+    public synchronized void predict() {
+        //run the local snake one tick ahead of what the server has confirmed, the wall and body checks are
+        //left to the server, so a predicted move off the board simply waits for the authoritative state
+        GameModel model = models.get(0);
+        localTick = localTick + 1;
+        if (!model.getIsStart()) {
+            return;
+        }
+        boolean eats = model.getHeadX() == foodX && model.getHeadY() == foodY;
+        int tailX = model.getTailX();
+        int tailY = model.getTailY();
+        if (eats) {
+            model.increaseLength();
+        }
+        model.updateSnake(num, num);
+        if (model.getIsStart()) {
+            if (!eats) {
+                view.paintTail(tailX, tailY);
+            }
+            view.paintHead(model.getHeadX(), model.getHeadY());//paint the new head
+            view.paintBody(model.getX(1), model.getY(1));//paint the old head to the colour of body
+        }
+    }
+
     public void sendToServer(MessageType type, byte[] senData){
+        if (socket == null) {
+            return;
+        }
         try {
-            Packet packet = new Packet(type, senData);
-            byte[] data = SerializationUtils.serialize(packet);
-            InetAddress address = InetAddress.getByName("localhost");
-            DatagramPacket senPacket = new DatagramPacket(data, data.length, address, 8088);
-            socket.send(senPacket);
+            //the codec reuses one buffer, so the key handler and the sending thread take turns
+            synchronized (codec) {
+                ByteBuffer data = codec.encode(type, token, senData);
+                if (sendPacket == null) {
+                    sendPacket = new DatagramPacket(data.array(), data.limit(), InetAddress.getByName("localhost"), GameConstants.serverPort);
+                }
+                sendPacket.setData(data.array(), 0, data.limit());
+                socket.send(sendPacket);
+            }
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
     public void recFromServer(){
+        //one buffer and one datagram packet serve every receive
+        ByteBuffer buffer = pool.acquire();
+        DatagramPacket recPacket = new DatagramPacket(buffer.array(), buffer.capacity());
         try {
-            int count = 0;
             while (true){
                 //receive info from server
-                DatagramPacket recPacket = new DatagramPacket(new byte[GameConstants.longPacketLength],GameConstants.longPacketLength);
+                recPacket.setLength(buffer.capacity());
                 socket.receive(recPacket);
-                LOGGER.info("Client received: {}", recPacket);
-
-                //get received data
-                byte[] recData = recPacket.getData();
-                Packet packet = SerializationUtils.deserialize(recData);
-
-                //differentiate elements
-                diffElement(packet);
-                count++;
-
-                //once receiving all data, initialise the snake on client side
-                if (count == 5){
-                    models.get(0).initialiseSnake(models.get(0).getLength(), headX, headY, grid);
-                    view.paintSnake(models.get(0).getLength(), headX, headY);
-                    view.paintFood(foodX, foodY);
-                    models.get(0).setIsStart(true);
-                    Runnable startRun = new Runnable() {
-                        @Override
-                        public void run() {
-                            startRunning();
-                        }
-                    };
-                    Thread startThread = new Thread(startRun);
-                    startThread.start();
+
+                //decode received data and differentiate elements, a datagram that is not a valid packet
+                //or carries a malformed state is dropped on its own and the next one is received
+                try {
+                    Packet packet = PacketCodec.decode(recPacket.getData(), 0, recPacket.getLength());
+                    Trace.event(Trace.Kind.PACKET_IN, packet.getType().number, recPacket.getLength());
+                    diffElement(packet);
+                } catch (RuntimeException exception) {
+                    LOGGER.warn("Dropped datagram: {}", exception.toString());
                 }
             }
         } catch (Exception e) {
             e.printStackTrace();
+        } finally {
+            pool.release(buffer);
+        }
+    }
+
+    public synchronized void applySnapshot(byte[] snapshot) {
+        if (finished) {
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(snapshot);
+        int snapshotTick = PacketCodec.getVarint(buffer);
+        if (snapshotTick <= tick) {
+            return;//arrived late, a newer state has been applied already
+        }
+        int cells = PacketCodec.getVarint(buffer);
+        if (cells < 1 || cells > 1 + buffer.remaining() * 3) {
+            throw new IllegalArgumentException("Snapshot of " + cells + " cells");//three steps a byte at most
+        }
+        int growth = PacketCodec.getVarint(buffer);
+        Direction direction = DIRECTIONS[PacketCodec.getOrdinal(buffer, DIRECTIONS.length)];
+        int snapshotFoodX = PacketCodec.getVarint(buffer);
+        int snapshotFoodY = PacketCodec.getVarint(buffer);
+        int score = PacketCodec.getVarint(buffer);
+        int lastInput = PacketCodec.getVarint(buffer);
+        //rebuild the body from the head and the step towards each following cell
+        int[] body = new int[cells];
+        int x = PacketCodec.getVarint(buffer);
+        int y = PacketCodec.getVarint(buffer);
+        body[0] = GameModel.pack(x, y);
+        int packed = 0;
+        for (int i = 1; i < cells; i++) {
+            if ((i - 1) % 3 == 0) {
+                packed = PacketCodec.getVarint(buffer);
+            }
+            switch (DIRECTIONS[(packed >> ((i - 1) % 3 * 2)) & 3]) {
+                case UP:
+                    y = y - 1;
+                    break;
+                case DOWN:
+                    y = y + 1;
+                    break;
+                case LEFT:
+                    x = x - 1;
+                    break;
+                case RIGHT:
+                    x = x + 1;
+                    break;
+            }
+            body[i] = GameModel.pack(x, y);
+        }
+
+        confirmed.resetBody(body, cells, growth);
+        boolean first = !confirmed.getIsStart();
+        confirmed.setIsStart(true);
+        applyCommon(direction, snapshotFoodX, snapshotFoodY, score);
+        tick = snapshotTick;
+        reconcile(lastInput);
+        if (first) {
+            //from the first state on, the local snake is predicted at the speed of the game
+            confirmed.setSpeed(models.get(0).getSpeed());
+            scheduler.register(confirmed, new Runnable() {
+                @Override
+                public void run() {
+                    predict();
+                }
+            });
+        }
+        acknowledge();
+    }
+
+    public synchronized void applyDelta(byte[] delta) {
+        ByteBuffer buffer = ByteBuffer.wrap(delta);
+        int baseline = PacketCodec.getVarint(buffer);
+        int deltaTick = PacketCodec.getVarint(buffer);
+        if (finished || !confirmed.getIsStart() || baseline > tick || deltaTick <= tick) {
+            //either a tick between the baseline and ours is missing, or this delta is old,
+            //the server keeps sending from our last acknowledgement until a newer state gets through
+            return;
+        }
+        Direction direction = DIRECTIONS[PacketCodec.getOrdinal(buffer, DIRECTIONS.length)];
+        int deltaFoodX = PacketCodec.getVarint(buffer);
+        int deltaFoodY = PacketCodec.getVarint(buffer);
+        int score = PacketCodec.getVarint(buffer);
+        int lastInput = PacketCodec.getVarint(buffer);
+        for (int t = baseline + 1; t <= deltaTick; t++) {
+            int x = PacketCodec.getVarint(buffer);
+            int y = PacketCodec.getVarint(buffer);
+            boolean grown = PacketCodec.getVarint(buffer) == 1;
+            //ticks up to our own have been applied already
+            if (t <= tick || (x == confirmed.getHeadX() && y == confirmed.getHeadY())) {
+                continue;
+            }
+            //follow the server one cell, keeping the tail if the snake grew
+            if (grown) {
+                confirmed.increaseLength();
+            }
+            confirmed.moveHeadTo(x, y);
         }
+        applyCommon(direction, deltaFoodX, deltaFoodY, score);
+        tick = deltaTick;
+        reconcile(lastInput);
+        acknowledge();
     }
 
-    private void startRunning() {
-        while (models.get(0).getIsStart().equals(true)){
-            view.paintTail(models.get(0).getSnakeX().get(models.get(0).getLength() - 1)/grid,
-                    models.get(0).getSnakeY().get(models.get(0).getLength() - 1)/grid);
-            models.get(0).updateSnake(grid, gameWidth, gameHeight);
-            view.paintHead(models.get(0).getSnakeX().get(0)/grid, models.get(0).getSnakeY().get(0)/grid);//paint the new head
-            view.paintBody(models.get(0).getSnakeX().get(1)/grid, models.get(0).getSnakeY().get(1)/grid);//paint the old head to the colour of body
-            try {
-                Thread.sleep(models.get(0).getSpeed());
-            } catch (InterruptedException exception) {
-                LOGGER.error(exception.getMessage());
+    private void applyCommon(Direction direction, int newFoodX, int newFoodY, int score) {
+        confirmed.setDirection(direction);
+        confirmed.setLastDirection(direction);
+        confirmed.setScore(score);
+        view.showScore(score);
+        headX = confirmed.getHeadX();
+        headY = confirmed.getHeadY();
+        foodX = newFoodX;
+        foodY = newFoodY;
+        view.paintFood(foodX, foodY);
+    }
+
+    private void reconcile(int lastInput) {
+        //turns the server has applied are part of the confirmed state now
+        while (inputCount > 0 && inputSequences[inputFirst & (INPUT_HISTORY - 1)] <= lastInput) {
+            inputFirst = inputFirst + 1;
+            inputCount = inputCount - 1;
+        }
+        //rewind the local snake to the confirmed state and replay the remaining turns up to the local tick,
+        //a turn the server has not applied yet can take effect on the next tick at the earliest
+        GameModel model = models.get(0);
+        int shownLength = model.getLength();
+        if (shown.length < shownLength) {
+            shown = new int[Math.max(shownLength, shown.length * 2)];
+        }
+        for (int i = 0; i < shownLength; i++) {
+            shown[i] = GameModel.pack(model.getX(i), model.getY(i));
+        }
+        model.copyFrom(confirmed);
+        if (localTick < tick) {
+            localTick = tick;
+        }
+        int next = 0;
+        for (int t = tick + 1; t <= localTick + 1; t++) {
+            while (next < inputCount && inputTicks[(inputFirst + next) & (INPUT_HISTORY - 1)] <= t) {
+                model.setDirection(inputDirections[(inputFirst + next) & (INPUT_HISTORY - 1)]);
+                next = next + 1;
+            }
+            if (t <= localTick && model.getIsStart()) {
+                if (model.getHeadX() == foodX && model.getHeadY() == foodY) {
+                    model.increaseLength();
+                }
+                model.updateSnake(num, num);
             }
         }
+        model.setIsStart(true);
+        repaint(model, shownLength);
+    }
+
+    private void repaint(GameModel model, int shownLength) {
+        //a correct prediction leaves the painted snake as it is, otherwise the old one is wiped and redrawn
+        boolean same = shownLength == model.getLength();
+        for (int i = 0; same && i < shownLength; i++) {
+            same = shown[i] == GameModel.pack(model.getX(i), model.getY(i));
+        }
+        if (same) {
+            return;
+        }
+        for (int i = 0; i < shownLength; i++) {
+            view.paintTail(GameModel.cellX(shown[i]), GameModel.cellY(shown[i]));
+        }
+        view.paintFood(foodX, foodY);
+        view.paintHead(model.getHeadX(), model.getHeadY());
+        for (int i = 1; i < model.getLength(); i++) {
+            view.paintBody(model.getX(i), model.getY(i));
+        }
+    }
+
+    private void acknowledge() {
+        sendToServer(MessageType.ACK, PacketCodec.fields(tick));
     }
 
     public void diffElement(Packet packet) {
         switch (packet.getType()){
             case SNAKE_HEAD_X:
-                headX = packet.getPayload()[0];
-                LOGGER.info("snake head x: {}", headX);
+                headX = PacketCodec.field(packet.getPayload(), 0);
                 break;
             case SNAKE_HEAD_Y:
-                headY = packet.getPayload()[0];
-                LOGGER.info("snake head y: {}", headY);
+                headY = PacketCodec.field(packet.getPayload(), 0);
                 break;
             case SNAKE_LENGTH:
-                int length = packet.getPayload()[0];
+                int length = PacketCodec.field(packet.getPayload(), 0);
                 models.get(0).setLength(length);
-                LOGGER.info("snake length: {}", length);
                 break;
             case FOOD_X:
-                foodX = packet.getPayload()[0];
-                LOGGER.info("foodX: {}", foodX);
+                foodX = PacketCodec.field(packet.getPayload(), 0);
                 break;
             case FOOD_Y:
-                foodY = packet.getPayload()[0];
-                LOGGER.info("foodY: {}", foodY);
+                foodY = PacketCodec.field(packet.getPayload(), 0);
                 break;
             case EATEN:
                 models.get(0).increaseLength();
-                view.getCurrentScoreText().setText("Current score: " + models.get(0).getScore());
-                LOGGER.info("new snake length: {}", models.get(0).getLength());
-                foodX = packet.getPayload()[0];
-                foodY = packet.getPayload()[1];
+                view.showScore(models.get(0).getScore());
+                foodX = PacketCodec.field(packet.getPayload(), 0);
+                foodY = PacketCodec.field(packet.getPayload(), 1);
                 view.paintFood(foodX, foodY);
-                LOGGER.info("new foodX: {}", foodX);
-                LOGGER.info("new foodY: {}", foodY);
                 break;
             case HIT:
-                models.get(0).setIsStart(false);
+                //under the same lock as the state packets, so none of them restarts the snake afterwards
+                synchronized (this) {
+                    finished = true;
+                    models.get(0).setIsStart(false);
+                    confirmed.setIsStart(false);
+                }
                 LOGGER.info("hit body, game stop");
                 break;
+            case WELCOME:
+                token = PacketCodec.field(packet.getPayload(), 0);
+                LOGGER.info("session token received");
+                break;
+            case LEADERBOARD:
+                //the best games of the level played, the best one is shown as the record
+                leaders = Leaderboard.decode(packet.getPayload());
+                if (!leaders.isEmpty()) {
+                    view.showBest(leaders.get(0).getPlayer(), leaders.get(0).getScore());
+                }
+                break;
+            case SNAPSHOT:
+                applySnapshot(packet.getPayload());
+                break;
+            case DELTA:
+                applyDelta(packet.getPayload());
+                break;
         }
     }
 
@@ -168,8 +393,7 @@ public class ClientController extends GameController {
         } else {
             validInput = models.get(0).getPlayer();
         }
-        senName = validInput.getBytes();
-        sendToServer(MessageType.NAME, senName);
+        sendToServer(MessageType.NAME, validInput.getBytes());
 
         //send game level to server
         int selectedLevel;
@@ -180,26 +404,26 @@ public class ClientController extends GameController {
             selectedLevel = view.getLevelChoiceBox().getSelectionModel().getSelectedIndex() + 1;
             models.get(0).setSnakeSpeed(selectedLevel);
         }
-        senLevel[0] = (byte) selectedLevel;
-        sendToServer(MessageType.LEVEL, senLevel);
+        sendToServer(MessageType.LEVEL, PacketCodec.fields(selectedLevel));
     }
 
 
     @Override
     public void startGame() {
-        //open a udp socket
+        //open a udp socket, on the chosen port or on any free one, the server tells clients apart by address
         try {
-            if (view.getPortChoiceBox().getSelectionModel().getSelectedIndex()==0){
-                socket = new DatagramSocket(1111);
-            }
-            if (view.getPortChoiceBox().getSelectionModel().getSelectedIndex()==1){
-                socket = new DatagramSocket(2222);
+            int selected = view.getPortChoiceBox().getSelectionModel().getSelectedIndex();
+            if (selected >= 0) {
+                socket = new DatagramSocket(Integer.parseInt(view.getPortChoiceBox().getItems().get(selected).toString()));
+            } else {
+                socket = new DatagramSocket();
             }
         }catch (Exception e){
             e.printStackTrace();
         }
 
         //create a new model, set values for models
+        finished = false;
         GameModel model = new GameModel();
         models.add(model);
 
@@ -13,10 +13,10 @@ import java.util.ArrayList;
 public class GameController {
     public ArrayList<GameModel> models = new ArrayList<>();
     public GameView view;
-    public int grid = GameConstants.grid;
+    public int grid;//pixels of a cell, set from the screen only when there is a view
     public int num = GameConstants.num;
-    public int gameWidth = GameConstants.gameWidth;
-    public int gameHeight = GameConstants.gameHeight;
+    public int gameWidth;
+    public int gameHeight;
     public int headX;
     public int headY;
     public int foodX;//X coordinate of the food
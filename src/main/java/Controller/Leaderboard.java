@@ -0,0 +1,287 @@
+package Controller;
+
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+//every finished game is appended to one log file as a line time,level,score,player and never rewritten,
+//the best games of each level and the best game of each player are kept in memory, rebuilt from the log on open,
+//games are submitted by many room workers at once without a lock and the log is written on the file writer thread
+public class Leaderboard {
+    private static final Logger LOGGER = LoggerFactory.getLogger(Leaderboard.class);
+    public static final int TOP = 100;//games kept in memory for each level
+    private static final Comparator<Entry> RANKING = new Comparator<Entry>() {
+        @Override
+        public int compare(Entry a, Entry b) {
+            //higher score first, an equal score goes to whoever reached it first
+            if (a.score != b.score) {
+                return Integer.compare(b.score, a.score);
+            }
+            if (a.time != b.time) {
+                return Long.compare(a.time, b.time);
+            }
+            return Long.compare(a.id, b.id);
+        }
+    };
+    private static final AtomicLong IDS = new AtomicLong();//tells apart games equal in everything else
+    private volatile File file;//null until the log is opened, games submitted before are kept in unsaved
+    private final AsyncFileWriter writer;
+    private final Queue<Entry> unsaved = new ArrayDeque<>();//guarded by itself, only used before the log is open
+    private final EnumMap<Level, ConcurrentSkipListSet<Entry>> tops = new EnumMap<>(Level.class);
+    private final EnumMap<Level, AtomicInteger> sizes = new EnumMap<>(Level.class);//the size of a skip list is not constant time
+    private final EnumMap<Level, ConcurrentHashMap<String, AtomicReference<Entry>>> bests = new EnumMap<>(Level.class);
+    private final AtomicReference<Entry> best = new AtomicReference<>();//best game on any level
+    private final LongAdder count = new LongAdder();//games in the log
+
+    @Getter
+    public static class Entry {
+        private final long time;//milliseconds since the epoch when the game ended
+        private final Level level;
+        private final int score;
+        private final String player;
+        private final long id;
+
+        public Entry(long time, Level level, int score, String player) {
+            this.time = time;
+            this.level = level;
+            this.score = score;
+            //the player is the last field of a line, only a line break could break it
+            this.player = player.replace('\n', ' ').replace('\r', ' ');
+            this.id = IDS.incrementAndGet();
+        }
+    }
+
+    public Leaderboard(File file, AsyncFileWriter writer) {
+        this.writer = writer;
+        //the maps are filled once here and only their values change afterwards
+        for (Level level : Level.values()) {
+            tops.put(level, new ConcurrentSkipListSet<>(RANKING));
+            sizes.put(level, new AtomicInteger());
+            bests.put(level, new ConcurrentHashMap<>());
+        }
+        if (file != null) {
+            open(file);
+        }
+    }
+
+    public Leaderboard(File file) {
+        this(file, new AsyncFileWriter());
+    }
+
+    //reads the games of the log into the games already submitted, which are then appended to it,
+    //from then on every game submitted goes to the log
+    public void open(File log) {
+        synchronized (unsaved) {
+            if (file != null) {
+                throw new IllegalStateException("Leaderboard log already open");
+            }
+            load(log);
+            //the record.txt of older versions and a line cut by a crash have no line break at the end,
+            //the first game appended must not be glued onto them
+            if (log.exists() && !endsWithLineBreak(log)) {
+                writer.append(log, "\n");
+            }
+            Entry entry;
+            while ((entry = unsaved.poll()) != null) {
+                writer.append(log, line(entry));
+            }
+            file = log;
+        }
+    }
+
+    private void load(File log) {
+        if (!log.exists()) {
+            return;
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(log), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                Entry entry = parse(line);
+                if (entry != null) {
+                    index(entry);
+                }
+            }
+        } catch (IOException exception) {
+            LOGGER.error(exception.getMessage());
+            exception.printStackTrace();
+        }
+    }
+
+    private static boolean endsWithLineBreak(File log) {
+        try (RandomAccessFile last = new RandomAccessFile(log, "r")) {
+            if (last.length() == 0) {
+                return true;
+            }
+            last.seek(last.length() - 1);
+            return last.read() == '\n';
+        } catch (IOException exception) {
+            LOGGER.error(exception.getMessage());
+            return true;
+        }
+    }
+
+    private Entry parse(String line) {
+        if (line.isEmpty()) {
+            return null;
+        }
+        String[] parts = line.split(",", 4);
+        try {
+            if (parts.length == 4) {
+                return new Entry(Long.parseLong(parts[0]), Level.valueOf(parts[1]), Integer.parseInt(parts[2]), parts[3]);
+            }
+            //a record.txt of older versions only holds the best player:score, of an unknown level and time
+            int colon = line.lastIndexOf(':');
+            if (colon > 0) {
+                return new Entry(0, Level.L1, Integer.parseInt(line.substring(colon + 1)), line.substring(0, colon));
+            }
+        } catch (IllegalArgumentException exception) {
+            //falls through, a line cut by a crash while it was appended is skipped
+        }
+        LOGGER.warn("Skipped leaderboard line: {}", line);
+        return null;
+    }
+
+    private void index(Entry entry) {
+        count.increment();
+        //every game over the limit pushes out one game, which may be the one just added
+        ConcurrentSkipListSet<Entry> top = tops.get(entry.level);
+        top.add(entry);
+        AtomicInteger size = sizes.get(entry.level);
+        if (size.incrementAndGet() > TOP && top.pollLast() != null) {
+            size.decrementAndGet();
+        }
+        raise(bests.get(entry.level).computeIfAbsent(entry.player, player -> new AtomicReference<>()), entry);
+        raise(best, entry);
+    }
+
+    private static void raise(AtomicReference<Entry> holder, Entry entry) {
+        //replace the held game only while the new one ranks higher, retried when another game got there first
+        Entry current;
+        do {
+            current = holder.get();
+            if (current != null && RANKING.compare(entry, current) >= 0) {
+                return;
+            }
+        } while (!holder.compareAndSet(current, entry));
+    }
+
+    //ranks the game at once and hands its line to the file writer
+    public Entry submit(String player, Level level, int score) {
+        Entry entry = new Entry(System.currentTimeMillis(), level, score, player);
+        index(entry);
+        File log = file;
+        if (log == null) {
+            //the log may be opening right now, the lock decides whether open appends the game or this call does
+            synchronized (unsaved) {
+                log = file;
+                if (log == null) {
+                    unsaved.add(entry);
+                    return entry;
+                }
+            }
+        }
+        writer.append(log, line(entry));
+        return entry;
+    }
+
+    private static String line(Entry entry) {
+        return entry.time + "," + entry.level.name() + "," + entry.score + "," + entry.player + "\n";
+    }
+
+    //the best games of a level, best first, games submitted meanwhile may or may not be included
+    public List<Entry> top(Level level, int n) {
+        List<Entry> result = new ArrayList<>(Math.min(n, TOP));
+        for (Entry entry : tops.get(level)) {
+            if (result.size() == n) {
+                break;
+            }
+            result.add(entry);
+        }
+        return result;
+    }
+
+    //the best game of a player on a level, null when the player has not finished one there
+    public Entry personalBest(String player, Level level) {
+        AtomicReference<Entry> holder = bests.get(level).get(player);
+        return holder == null ? null : holder.get();
+    }
+
+    //the best game of a player on any level
+    public Entry personalBest(String player) {
+        Entry result = null;
+        for (Level level : Level.values()) {
+            Entry entry = personalBest(player, level);
+            if (entry != null && (result == null || RANKING.compare(entry, result) < 0)) {
+                result = entry;
+            }
+        }
+        return result;
+    }
+
+    public Entry best() {
+        return best.get();
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    //waits until every submitted game is in the log
+    public void flush() {
+        writer.flush();
+    }
+
+    //the best games of a level for a client: level, count, then the score, name length and name of each game,
+    //games that would make the payload longer than the limit are left out
+    public static byte[] encode(Level level, List<Entry> entries, int limit) {
+        ByteBuffer buffer = ByteBuffer.allocate(limit);
+        PacketCodec.putVarint(buffer, level.ordinal());
+        int countAt = buffer.position();
+        buffer.put((byte) 0);
+        int written = 0;
+        for (Entry entry : entries) {
+            byte[] name = entry.player.getBytes(StandardCharsets.UTF_8);
+            if (written == 127 || buffer.remaining() < name.length + 10) {
+                break;
+            }
+            PacketCodec.putVarint(buffer, entry.score);
+            PacketCodec.putVarint(buffer, name.length);
+            buffer.put(name);
+            written++;
+        }
+        buffer.put(countAt, (byte) written);//one byte varint, the count never reaches 128
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    public static List<Entry> decode(byte[] payload) {
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        Level level = Level.values()[PacketCodec.getOrdinal(buffer, Level.values().length)];
+        int size = PacketCodec.getVarint(buffer);
+        if (size < 0 || size > buffer.remaining() / 2) {
+            throw new IllegalArgumentException("Leaderboard of " + size + " games");//a score and a name length a game at least
+        }
+        List<Entry> entries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int score = PacketCodec.getVarint(buffer);
+            int length = PacketCodec.getVarint(buffer);
+            if (length < 0 || length > buffer.remaining()) {
+                throw new IllegalArgumentException("Name length " + length + " exceeds payload");
+            }
+            byte[] name = new byte[length];
+            buffer.get(name);
+            entries.add(new Entry(0, level, score, new String(name, StandardCharsets.UTF_8)));
+        }
+        return entries;
+    }
+}
@@ -16,4 +16,14 @@ public enum Level {
     private Level(int speed){
         this.speed = speed;
     }
+
+    //the level a snake moving at this speed was started at, the slowest one when no level matches
+    public static Level of(int speed){
+        for (Level level : values()) {
+            if (level.speed == speed) {
+                return level;
+            }
+        }
+        return L1;
+    }
 }
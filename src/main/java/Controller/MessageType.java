@@ -10,11 +10,30 @@ public enum MessageType {
     FOOD_X(6),
     FOOD_Y(7),
     EATEN(8),
-    HIT(9);
+    HIT(9),
+    SNAPSHOT(10),
+    DELTA(11),
+    ACK(12),
+    WELCOME(13),
+    LEADERBOARD(14);
 
     public final int number;
+    private static final MessageType[] BY_NUMBER = new MessageType[values().length];
+
+    static {
+        for (MessageType type : values()) {
+            BY_NUMBER[type.number] = type;
+        }
+    }
 
     private MessageType(int number) {
         this.number = number;
     }
+
+    public static MessageType fromNumber(int number) {
+        if (number < 0 || number >= BY_NUMBER.length || BY_NUMBER[number] == null) {
+            throw new IllegalArgumentException("Unknown message type " + number);
+        }
+        return BY_NUMBER[number];
+    }
 }
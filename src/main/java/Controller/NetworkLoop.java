@@ -0,0 +1,209 @@
+package Controller;
+
+import Constants.GameConstants;
+import Metrics.ServerMetrics;
+import Metrics.Trace;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+//every datagram of the server goes through one non-blocking channel on one thread: the selector wakes it
+//for incoming datagrams and for replies queued by the game ticks, so no thread waits on a single client
+public class NetworkLoop {
+    private static final Logger LOGGER = LoggerFactory.getLogger(NetworkLoop.class);
+    private static final int POOL_SIZE = 256;
+    private static final long IDLE_PERIOD = 1000;//milliseconds between two calls of Receiver.idle
+    private final DatagramChannel channel;
+    private final Selector selector;
+    private final SelectionKey key;
+    private final Receiver receiver;
+    private final ServerMetrics metrics;
+    private final ByteBuffer inbound = ByteBuffer.allocateDirect(GameConstants.longPacketLength);
+    private final Queue<Outgoing> outbound = new ConcurrentLinkedQueue<>();
+    private final BufferPool pool = new BufferPool(POOL_SIZE, GameConstants.longPacketLength, true);//direct buffers of queued datagrams
+    private final AtomicInteger queued = new AtomicInteger();//datagrams in outbound, never more than the pool holds
+    private final LongAdder dropped = new LongAdder();//datagrams dropped because the queue was full or the send failed
+    private final Thread thread;
+    private volatile boolean running = true;
+    private long lastIdle = System.nanoTime();
+
+    public interface Receiver {
+        void receive(SocketAddress address, Packet packet);
+
+        //called on the loop thread about once a second, also when no datagram arrives
+        default void idle(long now) {
+        }
+    }
+
+    public NetworkLoop(int port, Receiver receiver) throws IOException {
+        this(port, receiver, new ServerMetrics());
+    }
+
+    public NetworkLoop(int port, Receiver receiver, ServerMetrics metrics) throws IOException {
+        this.receiver = receiver;
+        this.metrics = metrics;
+        channel = DatagramChannel.open();
+        channel.bind(new InetSocketAddress(port));
+        channel.configureBlocking(false);
+        selector = Selector.open();
+        key = channel.register(selector, SelectionKey.OP_READ);
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                loop();
+            }
+        }, "network-loop");
+        thread.setDaemon(true);
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    public void send(SocketAddress address, ByteBuffer data) {
+        //the caller's buffer is reused as soon as this returns, so the datagram is copied into a pooled direct buffer,
+        //once every buffer of the pool is waiting in the queue the socket cannot keep up and the datagram is dropped,
+        //only the buffer is pooled, the Outgoing and its queue node are still allocated per datagram
+        if (queued.incrementAndGet() > POOL_SIZE) {
+            queued.decrementAndGet();
+            dropped.increment();
+            return;
+        }
+        ByteBuffer copy = pool.acquire();
+        if (copy.capacity() < data.remaining()) {
+            //a snapshot of a long snake, the larger buffer joins the pool when it is released
+            copy = ByteBuffer.allocateDirect(data.remaining());
+        }
+        copy.put(data);
+        copy.flip();
+        outbound.add(new Outgoing(address, copy));
+        selector.wakeup();
+    }
+
+    public BufferPool getPool() {
+        return pool;
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public int getLocalPort() {
+        try {
+            return ((InetSocketAddress) channel.getLocalAddress()).getPort();
+        } catch (IOException exception) {
+            return -1;
+        }
+    }
+
+    public void close() {
+        running = false;
+        selector.wakeup();
+        try {
+            thread.join(1000);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void loop() {
+        while (running) {
+            try {
+                selector.select(IDLE_PERIOD);
+                selector.selectedKeys().clear();
+                read();
+                write();
+                idle();
+            } catch (IOException | RuntimeException exception) {
+                //the loop serves every client, so whatever went wrong it carries on with the next pass
+                LOGGER.error("Network loop failed: {}", exception.getMessage());
+            }
+        }
+        try {
+            selector.close();
+            channel.close();
+        } catch (IOException exception) {
+            LOGGER.error(exception.getMessage());
+        }
+    }
+
+    private void idle() {
+        long now = System.nanoTime();
+        if (now - lastIdle >= TimeUnit.MILLISECONDS.toNanos(IDLE_PERIOD)) {
+            lastIdle = now;
+            receiver.idle(now);
+        }
+    }
+
+    private void read() throws IOException {
+        //drain everything that arrived since the last wakeup
+        while (true) {
+            inbound.clear();
+            SocketAddress address = channel.receive(inbound);
+            if (address == null) {
+                return;
+            }
+            inbound.flip();
+            int bytes = inbound.remaining();
+            Packet packet;
+            try {
+                packet = PacketCodec.decode(inbound);
+            } catch (IllegalArgumentException exception) {
+                LOGGER.warn("Dropped datagram: {}", exception.getMessage());
+                continue;
+            }
+            metrics.received(packet.getType(), bytes);
+            Trace.event(Trace.Kind.PACKET_IN, packet.getType().number, bytes);
+            try {
+                receiver.receive(address, packet);
+            } catch (RuntimeException exception) {
+                //one bad datagram must not stop the loop for every other client
+                LOGGER.error("Failed to handle datagram from {}", address, exception);
+            }
+        }
+    }
+
+    private void write() {
+        Outgoing outgoing;
+        while ((outgoing = outbound.peek()) != null) {
+            try {
+                if (channel.send(outgoing.data, outgoing.address) == 0) {
+                    //the socket buffer is full, wait until the channel is writable again
+                    key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                    return;
+                }
+            } catch (IOException | RuntimeException exception) {
+                //a datagram that cannot be sent to its address is dropped, so the clients behind it still get theirs
+                LOGGER.warn("Dropped datagram to {}: {}", outgoing.address, exception.getMessage());
+                dropped.increment();
+            }
+            outbound.poll();
+            queued.decrementAndGet();
+            pool.release(outgoing.data);
+        }
+        key.interestOps(SelectionKey.OP_READ);
+    }
+
+    //a queued datagram, neither the address nor the bytes change until it has been sent
+    private static class Outgoing {
+        private final SocketAddress address;
+        private final ByteBuffer data;
+
+        private Outgoing(SocketAddress address, ByteBuffer data) {
+            this.address = address;
+            this.data = data;
+        }
+    }
+}
@@ -3,17 +3,22 @@ package Controller;
 import lombok.Getter;
 import lombok.Setter;
 
-import java.io.Serializable;
-
 @Getter
 @Setter
-public class Packet implements Serializable {
+public class Packet {
     private MessageType type;
+    private int sequence;//number given by the sender, increasing with every datagram it sends
+    private int session;//token of the session the datagram belongs to, 0 when the sender does not know it yet
     private byte[] payload;
-    private static final long serialVersionUID = 1L;
 
     public Packet(MessageType type, byte[] payload) {
         this.type = type;
         this.payload = payload;
     }
+
+    public Packet(MessageType type, int sequence, byte[] payload) {
+        this.type = type;
+        this.sequence = sequence;
+        this.payload = payload;
+    }
 }
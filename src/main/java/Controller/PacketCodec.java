@@ -0,0 +1,124 @@
+package Controller;
+
+import Constants.GameConstants;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+//fixed layout of every datagram: version byte, type byte, varint sequence number, varint session token,
+//varint payload length, payload.
+//payload fields are varints as well, so small values such as a direction or a cell take a single byte
+public class PacketCodec {
+    public static final byte VERSION = 2;
+    public static final int MAX_HEADER = 2 + 3 * 5;//version, type and three varints of five bytes at most
+    private ByteBuffer buffer = ByteBuffer.allocate(GameConstants.longPacketLength);//grown for a long snapshot
+    private int sequence;
+
+    //the returned buffer is reused by the next call, so it must be sent before encoding again
+    public ByteBuffer encode(MessageType type, byte[] payload) {
+        return encode(type, 0, payload);
+    }
+
+    public ByteBuffer encode(MessageType type, int session, byte[] payload) {
+        return encode(type, session, ByteBuffer.wrap(payload));
+    }
+
+    public ByteBuffer encode(MessageType type, int session, ByteBuffer payload) {
+        //the payload is read from its position to its limit, so an encoder's scratch buffer can be passed without copying
+        sequence = sequence + 1;
+        if (buffer.capacity() < MAX_HEADER + payload.remaining()) {
+            buffer = ByteBuffer.allocate(Math.min(GameConstants.maxPacketLength, MAX_HEADER + payload.remaining()));
+        }
+        buffer.clear();
+        buffer.put(VERSION);
+        buffer.put((byte) type.number);
+        putVarint(buffer, sequence);
+        putVarint(buffer, session);
+        putVarint(buffer, payload.remaining());
+        buffer.put(payload);
+        buffer.flip();
+        return buffer;
+    }
+
+    public static Packet decode(byte[] data, int offset, int length) {
+        return decode(ByteBuffer.wrap(data, offset, length));
+    }
+
+    public static Packet decode(ByteBuffer buffer) {
+        try {
+            byte version = buffer.get();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported protocol version " + version);
+            }
+            MessageType type = MessageType.fromNumber(buffer.get());
+            int sequence = getVarint(buffer);
+            int session = getVarint(buffer);
+            int length = getVarint(buffer);
+            if (length < 0 || length > buffer.remaining()) {
+                throw new IllegalArgumentException("Payload length " + length + " exceeds datagram");
+            }
+            byte[] payload = new byte[length];
+            buffer.get(payload);
+            Packet packet = new Packet(type, sequence, payload);
+            packet.setSession(session);
+            return packet;
+        } catch (BufferUnderflowException exception) {
+            throw new IllegalArgumentException("Truncated datagram", exception);
+        }
+    }
+
+    public static void putVarint(ByteBuffer buffer, int value) {
+        //7 bits per byte, the high bit tells whether another byte follows
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value = value >>> 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    public static int getVarint(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            if (!buffer.hasRemaining()) {
+                throw new IllegalArgumentException("Truncated varint");
+            }
+            byte current = buffer.get();
+            value = value | (current & 0x7F) << shift;
+            if ((current & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    //a varint naming one of count constants, anything else means the packet is malformed
+    public static int getOrdinal(ByteBuffer buffer, int count) {
+        int ordinal = getVarint(buffer);
+        if (ordinal < 0 || ordinal >= count) {
+            throw new IllegalArgumentException("Ordinal " + ordinal + " out of range");
+        }
+        return ordinal;
+    }
+
+    public static byte[] fields(int... values) {
+        //encode into a scratch buffer first so the payload is exactly as long as its fields
+        ByteBuffer scratch = ByteBuffer.allocate(values.length * 5);
+        for (int value : values) {
+            putVarint(scratch, value);
+        }
+        byte[] payload = new byte[scratch.position()];
+        scratch.flip();
+        scratch.get(payload);
+        return payload;
+    }
+
+    public static int field(byte[] payload, int index) {
+        //fields are read in order, unused trailing bytes read as zero
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        int value = 0;
+        for (int i = 0; i <= index; i++) {
+            value = buffer.hasRemaining() ? getVarint(buffer) : 0;
+        }
+        return value;
+    }
+}
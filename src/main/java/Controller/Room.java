@@ -0,0 +1,87 @@
+package Controller;
+
+import Engine.Arena;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledFuture;
+
+//one arena with its players, ticked at the speed of its level by a single worker of the room manager,
+//only that worker touches the arena, players joining are handed over through a queue
+@Getter
+public class Room {
+    private final int id;
+    private final int speed;
+    private final int capacity;
+    private final int snakeLength;
+    private final Arena arena;
+    private final Host host;
+    private final List<Session> players = new ArrayList<>();
+    private final Queue<Session> joining = new ConcurrentLinkedQueue<>();
+    private volatile int size;//players in the room or on their way in, kept by the room manager
+    private ScheduledFuture<?> schedule;
+
+    //what the server does for the players of a room
+    public interface Host {
+        void opened(Room room);
+
+        void closed(Room room);
+
+        void joined(Session session);//the snake is on the board
+
+        void rejected(Session session);//the board had no space for the snake
+
+        void update(Session session);//after every tick the snake is still running
+
+        void finished(Session session);//the snake died, it has left the room
+    }
+
+    public Room(int id, int speed, int capacity, int snakeLength, Arena arena, Host host) {
+        this.id = id;
+        this.speed = speed;
+        this.capacity = capacity;
+        this.snakeLength = snakeLength;
+        this.arena = arena;
+        this.host = host;
+    }
+
+    public void tick() {
+        Session session;
+        while ((session = joining.poll()) != null) {
+            if (arena.spawn(session.getModel(), snakeLength)) {
+                players.add(session);
+                if (players.size() == 1) {
+                    arena.placeFood();
+                }
+                host.joined(session);
+            } else {
+                host.rejected(session);
+            }
+        }
+        if (players.isEmpty()) {
+            return;
+        }
+        arena.step();
+        for (int i = players.size() - 1; i >= 0; i--) {
+            Session player = players.get(i);
+            if (player.getModel().getIsStart()) {
+                host.update(player);
+            } else {
+                players.remove(i);
+                arena.remove(player.getModel());
+                host.finished(player);
+            }
+        }
+    }
+
+    void setSize(int size) {
+        this.size = size;
+    }
+
+    void setSchedule(ScheduledFuture<?> schedule) {
+        this.schedule = schedule;
+    }
+}
@@ -0,0 +1,132 @@
+package Controller;
+
+import Engine.Arena;
+import Metrics.ServerMetrics;
+import Metrics.Trace;
+import Model.Board;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+//the lobby: players are put into rooms of their level that still have space, new rooms are opened as needed,
+//and every room is pinned to one single-threaded shard, room i on shard i % shards, so rooms share no state
+public class RoomManager {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RoomManager.class);
+    private final ScheduledExecutorService[] shards;
+    private final List<Room> rooms = new ArrayList<>();
+    private final int columns;
+    private final int rows;
+    private final int capacity;
+    private final int snakeLength;
+    private final Room.Host host;
+    private final ServerMetrics metrics;
+    private final Random random = new Random();
+    private int nextId;
+
+    public RoomManager(int shardCount, int columns, int rows, int capacity, int snakeLength, Room.Host host) {
+        this(shardCount, columns, rows, capacity, snakeLength, host, new ServerMetrics());
+    }
+
+    public RoomManager(int shardCount, int columns, int rows, int capacity, int snakeLength, Room.Host host,
+                       ServerMetrics metrics) {
+        this.metrics = metrics;
+        this.columns = columns;
+        this.rows = rows;
+        this.capacity = capacity;
+        this.snakeLength = snakeLength;
+        this.host = host;
+        shards = new ScheduledExecutorService[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            int shard = i;
+            shards[i] = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "room-shard-" + shard);
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+    }
+
+    public synchronized Room join(Session session) {
+        int speed = session.getModel().getSpeed();
+        Room room = null;
+        for (Room open : rooms) {
+            if (open.getSpeed() == speed && open.getSize() < capacity) {
+                room = open;
+                break;
+            }
+        }
+        if (room == null) {
+            room = open(speed);
+        }
+        room.setSize(room.getSize() + 1);
+        session.setRoom(room);
+        room.getJoining().add(session);
+        return room;
+    }
+
+    public synchronized void leave(Session session) {
+        //called by the room's shard once the snake has left the arena, an empty room is closed
+        Room room = session.getRoom();
+        room.setSize(room.getSize() - 1);
+        if (room.getSize() == 0) {
+            room.getSchedule().cancel(false);
+            rooms.remove(room);
+            host.closed(room);
+            LOGGER.info("Room {} closed", room.getId());
+        }
+    }
+
+    public synchronized int getRoomCount() {
+        return rooms.size();
+    }
+
+    public synchronized List<Room> getRooms() {
+        return new ArrayList<>(rooms);
+    }
+
+    public void shutdown() {
+        for (ScheduledExecutorService shard : shards) {
+            shard.shutdownNow();
+        }
+    }
+
+    private Room open(int speed) {
+        int id = nextId;
+        nextId = nextId + 1;
+        Arena arena = new Arena(new Board(columns, rows), new Random(random.nextLong()));
+        Room room = new Room(id, speed, capacity, snakeLength, arena, host);
+        rooms.add(room);
+        host.opened(room);
+        long period = TimeUnit.MILLISECONDS.toNanos(speed);
+        room.setSchedule(shards[id % shards.length].scheduleAtFixedRate(new Runnable() {
+            private long slot = System.nanoTime() + period;//when this tick should start on the room's clock
+
+            @Override
+            public void run() {
+                long started = System.nanoTime();
+                try {
+                    room.tick();
+                } catch (RuntimeException exception) {
+                    //an exception would cancel the schedule, so the room carries on with the next tick
+                    LOGGER.error("tick failed in room {}", room.getId(), exception);
+                }
+                long took = System.nanoTime() - started;
+                metrics.tick(started - slot, took);
+                Trace.event(Trace.Kind.TICK, room.getId(), (int) (took / 1000));
+                slot = slot + period;
+            }
+        }, speed, speed, TimeUnit.MILLISECONDS));
+        LOGGER.info("Room {} opened", id);
+        return room;
+    }
+}
@@ -1,23 +1,33 @@
 package Controller;
 
 import Constants.GameConstants;
+import Model.Board;
 import Model.Direction;
 import Model.GameModel;
+import Engine.Arena;
+import Engine.GameEngine;
+import Engine.ReplayPlayer;
+import Engine.ReplayRecorder;
+import Metrics.LinkStats;
+import Metrics.ServerMetrics;
+import Metrics.Trace;
+import View.GameViewListener;
+import javafx.application.Platform;
 import javafx.event.EventHandler;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
+import javafx.stage.Window;
 import lombok.Getter;
 import lombok.Setter;
-import org.apache.commons.lang3.SerializationUtils;
 import org.ini4j.Wini;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
-import java.net.DatagramPacket;
-import java.net.DatagramSocket;
-import java.net.InetAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 
 @Getter
@@ -25,179 +35,203 @@ import java.util.regex.Pattern;
 public class ServerController extends GameController {
     private File recordFile;
     private File iniFile;
-    private static Random random = new Random();
+    private File replayFile;//every local game is appended to it
+    private File playbackFile;//when set, the last game of this replay log is played instead of a new one
+    private TickScheduler scheduler = new TickScheduler(Runtime.getRuntime().availableProcessors());
+    private Random random = new Random();
     private static final Logger LOGGER = LoggerFactory.getLogger(ServerController.class);
-    private static DatagramSocket mainSocket;
-    private static InetAddress clientAddress;
-    private static Integer clientPort;
-    private static byte[] fx = new byte[GameConstants.shortPacketLength];
-    private static byte[] fy = new byte[GameConstants.shortPacketLength];
-    private static byte[] hx = new byte[GameConstants.shortPacketLength];
-    private static byte[] hy = new byte[GameConstants.shortPacketLength];
-    private static byte[] len = new byte[GameConstants.shortPacketLength];
-    private static byte[] foo = new byte[GameConstants.shortPacketLength];
-    private static byte[] end = new byte[GameConstants.shortPacketLength];
+    private static final byte[] NO_PAYLOAD = new byte[0];
+    private static final String REPLAY = "replay.bin";
+    private static final int LEADERS = 10;//games of the leaderboard sent to a client
+    private static final int LEADERS_LENGTH = GameConstants.longPacketLength - PacketCodec.MAX_HEADER;//payload of one regular datagram
+    private static final long METRICS_PERIOD = 60;//seconds between two metrics lines in the log
+    private NetworkLoop network;
+    private int port = GameConstants.serverPort;
+    private SessionRegistry sessions = new SessionRegistry();
+    private Session spectated;//the local game painted on this server's view
+    private RoomManager rooms;
+    private AsyncFileWriter fileWriter = new AsyncFileWriter();//saves the leaderboard and the window without blocking a tick
+    private final Leaderboard leaderboard = new Leaderboard(null, fileWriter);//every finished game, kept in the record file once it is open
+    private volatile Room shownRoom;//the room painted on this server's view
+    private ServerMetrics metrics = new ServerMetrics();
+    private volatile double[] geometry;//x, y, width and height of the window, copied on the FX thread whenever they change
 
     private EventHandler<KeyEvent> keyEventHandler = new EventHandler<KeyEvent>() {
         @Override
         public void handle(KeyEvent event) {
             KeyCode keyCode = event.getCode();
-            Direction direction = models.get(0).getLastDirection();
-            if (keyCode == KeyCode.UP && direction != Direction.DOWN) {
-                models.get(0).setDirection(Direction.UP);//user cannot directly change the direction to its opposite
-                LOGGER.info("Pressed Up");
+            //the turn waits in the snake's queue for the next tick, which also drops reversals
+            int dir = -1;
+            if (keyCode == KeyCode.UP) {
+                dir = 0;
             }
-            if (keyCode == KeyCode.DOWN && direction != Direction.UP) {
-                models.get(0).setDirection(Direction.DOWN);
-                LOGGER.info("Pressed Down");
+            if (keyCode == KeyCode.DOWN) {
+                dir = 1;
             }
-            if (keyCode == KeyCode.LEFT && direction != Direction.RIGHT) {
-                models.get(0).setDirection(Direction.LEFT);
-                LOGGER.info("Pressed Left");
+            if (keyCode == KeyCode.LEFT) {
+                dir = 2;
             }
-            if (keyCode == KeyCode.RIGHT && direction != Direction.LEFT) {
-                models.get(0).setDirection(Direction.RIGHT);
-                LOGGER.info("Pressed Right");
+            if (keyCode == KeyCode.RIGHT) {
+                dir = 3;
+            }
+            if (dir >= 0) {
+                setDirection(models.get(0), dir);
+                Trace.event(Trace.Kind.KEY, dir, 0);
             }
         }
     };//change the direction of the snake based on the keyboard input
 
-    private void sendSnakeInfoToClient(DatagramSocket socket,GameModel model, InetAddress clientAddress, Integer clientPort) {
-        hx[0] = (byte) headX;
-        hy[0] = (byte) headY;
-        len[0] = (byte) model.getLength();
-        sendToClient(socket, clientAddress, clientPort, MessageType.SNAKE_HEAD_X, hx);
-        sendToClient(socket, clientAddress, clientPort, MessageType.SNAKE_HEAD_Y, hy);
-        sendToClient(socket, clientAddress, clientPort, MessageType.SNAKE_LENGTH, len);
-        view.paintSnake(model.getLength(), headX, headY);
-    }
-
-    private void sendFoodToClient(DatagramSocket socket, InetAddress clientAddress, Integer clientPort) {
-        showFood();
-        fx[0] = (byte) foodX;
-        fy[0] = (byte) foodY;
-        sendToClient(socket, clientAddress, clientPort, MessageType.FOOD_X, fx);
-        sendToClient(socket, clientAddress, clientPort, MessageType.FOOD_Y, fy);
+    private void sendStateToClient(Session session) {
+        //everything the client needs for one tick travels in a single datagram, as a delta against
+        //the last tick it acknowledged or as a full snapshot when there is no usable baseline
+        StateSync sync = session.getSync();
+        MessageType type = sync.nextType();
+        sendToClient(session, type, sync.write(type, session.getModel(), session.getFoodX(), session.getFoodY()));
     }
 
     public void diffElement(GameModel model, Packet packet) {
         switch (packet.getType()) {
             case LEVEL:
-                int level = packet.getPayload()[0];
+                int level = PacketCodec.field(packet.getPayload(), 0);
                 model.setSnakeSpeed(level);
-                LOGGER.info("level: {}", level);
+                LOGGER.debug("level: {}", level);
                 break;
             case DIRECTION:
-                int dir = packet.getPayload()[0];
-                setDirection(model, dir);
-                LOGGER.info("direction: {}", dir);
+                int dir = PacketCodec.field(packet.getPayload(), 0);
+                //the sequence number tells the client which of its predicted turns the next state includes,
+                //it is applied together with the turn when the tick drains the queue
+                int sequence = PacketCodec.field(packet.getPayload(), 1);
+                setDirection(model, dir, sequence);
+                Trace.event(Trace.Kind.TURN, dir, sequence);
                 break;
             case NAME:
                 String name = new String(packet.getPayload(), 0, packet.getPayload().length);
                 model.setPlayer(name);
-                LOGGER.info("name: {}", name);
+                LOGGER.debug("name: {}", name);
         }
     }
 
-    public void sendToClient(DatagramSocket socket, InetAddress clientAddress, Integer clientPort, MessageType type, byte[] senData) {
+    public void sendToClient(Session session, MessageType type, byte[] senData) {
+        sendToClient(session, type, ByteBuffer.wrap(senData));
+    }
+
+    public void sendToClient(Session session, MessageType type, ByteBuffer senData) {
         try {
-            Packet packet = new Packet(type, senData);
-            byte[] data = SerializationUtils.serialize(packet);
-            DatagramPacket response = new DatagramPacket(data, data.length, clientAddress, clientPort);
-            socket.send(response);
-            LOGGER.info("Sent {}", response);
+            //every session encodes with its own codec, so games in different rooms never wait for each other,
+            //the network loop copies the datagram before this returns and never changes a queued one
+            PacketCodec codec = session.getCodec();
+            synchronized (codec) {
+                ByteBuffer encoded = codec.encode(type, session.getToken(), senData);
+                metrics.sent(type, encoded.remaining());
+                Trace.event(Trace.Kind.PACKET_OUT, type.number, encoded.remaining());
+                network.send(session.getAddress(), encoded);
+            }
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
     public void setDirection(GameModel model, int dir) {
+        setDirection(model, dir, model.getInputSequence());
+    }
+
+    public void setDirection(GameModel model, int dir, int sequence) {
+        //only queues the turn, the direction itself is changed by the thread moving the snake
         switch (dir) {
             case 0:
-                model.setDirection(Direction.UP);
+                model.queueTurn(Direction.UP, sequence);
                 break;
             case 1:
-                model.setDirection(Direction.DOWN);
+                model.queueTurn(Direction.DOWN, sequence);
                 break;
             case 2:
-                model.setDirection(Direction.LEFT);
+                model.queueTurn(Direction.LEFT, sequence);
                 break;
             case 3:
-                model.setDirection(Direction.RIGHT);
+                model.queueTurn(Direction.RIGHT, sequence);
                 break;
         }
     }
 
-    public void tickUpdate(GameModel model, DatagramSocket socket, InetAddress clientAddress, Integer clientPort) {
-        //override run function - while game is true, for each model, move it forward, t.sleep(game speed)
-        //e.g. 4 ticks per second, use 1000/4
-        Runnable r = new Runnable() {
+    public void tickUpdate(Session session) {
+        //every game is moved forward by the shared scheduler at the rate of its level,
+        //it leaves the schedule once the game start status turns false
+        scheduler.register(session.getModel(), new Runnable() {
             @Override
             public void run() {
-                //only run when the game start status is true
-                while (model.getIsStart().equals(true)) {
-                    startRunning(model, socket, clientAddress, clientPort);
-                }
-            }
-        };
-        Thread t = new Thread(r);
-        t.start();//run in a separate thread
-    }
-
-    public void startRunning(GameModel model, DatagramSocket socket, InetAddress clientAddress, Integer clientPort) {
-        if (model.getSnakeX().get(0).equals(foodX * grid) &&
-                model.getSnakeY().get(0).equals(foodY * grid)) {
-            //if the positions are the same, then the snake length increases 1,
-            //update the snake, and the current score increases 1
-            model.increaseLength();
-            view.getCurrentScoreText().setText("Current score: " + model.getScore());
-            //tell client to increase its snake length, send new food
-            showFood();
-            LOGGER.info("new foodX: {}", foodX);
-            LOGGER.info("new foodY: {}", foodY);
-            foo[0] = (byte) foodX;
-            foo[1] = (byte) foodY;
-            if (view.getMode().equals("Server")) {
-                sendToClient(socket, clientAddress, clientPort, MessageType.EATEN, foo);
-            }
-        } else {
-            //if the positions are not the same, then paint the tail to black
-            view.paintTail(model.getSnakeX().get(model.getLength() - 1) / grid,
-                    model.getSnakeY().get(model.getLength() - 1) / grid);
-        }
-        model.updateSnake(grid, gameWidth, gameHeight);//change the coordinates of the snake in every move
-        view.paintHead(model.getSnakeX().get(0) / grid, model.getSnakeY().get(0) / grid);//paint the new head
-        view.paintBody(model.getSnakeX().get(1) / grid, model.getSnakeY().get(1) / grid);//paint the old head to the colour of body
-        //after the move, check if snake head hits its own body
-        for (int i = 1; i < model.getLength(); i++) {
-            if (model.getSnakeX().get(0).equals(model.getSnakeX().get(i)) &&
-                    model.getSnakeY().get(0).equals(model.getSnakeY().get(i))) {
-                //if yes, then stop the game
-                model.setIsStart(false);
-                if (view.getMode().equals("Server")) {
-                    sendToClient(socket, clientAddress, clientPort, MessageType.HIT, end);
-                }
-                //write to the file only when the new score is higher than the previous best score
-                if (model.getScore() > bestScore) {
-                    bestScore = model.getScore();
-                    bestPlayer = model.getPlayer();
-                    writeToRecord();
-                }
-                //save to ini file
-                saveIni();
+                startRunning(session);
             }
+        });
+    }
+
+    public void startRunning(Session session) {
+        //the engine moves the snake, feeds it and detects the collision, the view follows through its listener
+        long started = System.nanoTime();
+        session.getEngine().step();
+        Trace.event(Trace.Kind.TICK, -1, (int) ((System.nanoTime() - started) / 1000));
+        if (session.getModel().isHit()) {
+            recordScore(session.getModel());
         }
-        try {
-            Thread.sleep(model.getSpeed());
-        } catch (InterruptedException exception) {
-            LOGGER.error(exception.getMessage());
+    }
+
+    private void recordScore(GameModel model) {
+        //games of many rooms end at once, the leaderboard takes them all without a lock
+        Leaderboard.Entry entry = leaderboard.submit(model.getPlayer(), Level.of(model.getSpeed()), model.getScore());
+        if (leaderboard.best() == entry && view != null) {
+            //the record is read again on the FX thread, so of two records set at once the later update shows the higher
+            Platform.runLater(new Runnable() {
+                @Override
+                public void run() {
+                    Leaderboard.Entry best = leaderboard.best();
+                    view.getBestPlayerText().setText("Best Player: " + best.getPlayer());
+                    view.getBestScoreText().setText("Best Score: " + best.getScore());
+                }
+            });
         }
+        //save to ini file
+        saveIni();
+    }
+
+    @Override
+    public int getBestScore() {
+        Leaderboard.Entry best = leaderboard.best();
+        return best == null ? bestScore : best.getScore();
+    }
+
+    @Override
+    public String getBestPlayer() {
+        Leaderboard.Entry best = leaderboard.best();
+        return best == null ? bestPlayer : best.getPlayer();
+    }
+
+    public byte[] leaders(Level level) {
+        return Leaderboard.encode(level, leaderboard.top(level, LEADERS), LEADERS_LENGTH);
     }
 
     public void showFood() {
-        foodX = random.nextInt(num - 1);
-        foodY = random.nextInt(num - 1);
-        view.paintFood(foodX, foodY);
+        if (spectated == null) {
+            //nothing is running yet, only show where food would go
+            foodX = random.nextInt(num);
+            foodY = random.nextInt(num);
+            view.paintFood(foodX, foodY);
+            return;
+        }
+        showFood(spectated);
+    }
+
+    public void showFood(Session session) {
+        session.getEngine().placeFood();
+        if (session.isShown()) {
+            foodX = session.getFoodX();
+            foodY = session.getFoodY();
+        }
+    }
+
+    private void show(Session session) {
+        //the shown game is painted through the view listener of its engine
+        session.setShown(true);
+        session.getEngine().setListener(new GameViewListener(view));
+        spectated = session;
     }
 
     public File createFile(String path) {
@@ -216,35 +250,13 @@ public class ServerController extends GameController {
         }
     }
 
-    public void writeToRecord() {
-        try {
-            BufferedWriter bufferedWriter = new BufferedWriter(new FileWriter(recordFile));
-            bufferedWriter.write(bestPlayer + ":" + bestScore);
-            bufferedWriter.flush();
-            bufferedWriter.close();
-            LOGGER.info("Content was successfully wrote to the file.");
-        } catch (IOException exception) {
-            LOGGER.error(exception.getMessage());
-            exception.printStackTrace();
-        }
-    }
-
     public void readFromRecord() {
-        String line;
-        try {
-            BufferedReader bufferedReader = new BufferedReader(new FileReader(recordFile));
-            if ((line = bufferedReader.readLine()) != null) {
-                String[] parts = line.split(":", 2);
-                bestPlayer = parts[0];
-                bestScore = Integer.parseInt(parts[1]);
-            } else {
-                LOGGER.info("No record yet.");
-            }
-            bufferedReader.close();
-
-        } catch (IOException exception) {
-            LOGGER.error(exception.getMessage());
-            exception.printStackTrace();
+        //the record file is the leaderboard log, the best game of all levels is the record
+        if (recordFile != null) {
+            leaderboard.open(recordFile);
+        }
+        if (leaderboard.best() == null) {
+            LOGGER.info("No record yet.");
         }
     }
 
@@ -264,27 +276,60 @@ public class ServerController extends GameController {
         }
     }
 
+    //called on the FX thread, the window is only ever read there, the game threads get the copy it keeps up to date
+    public void trackWindow(Window window) {
+        geometry = new double[]{window.getX(), window.getY(), window.getWidth(), window.getHeight()};
+        window.xProperty().addListener((observable, oldValue, newValue) -> moved(0, newValue.doubleValue()));
+        window.yProperty().addListener((observable, oldValue, newValue) -> moved(1, newValue.doubleValue()));
+        window.widthProperty().addListener((observable, oldValue, newValue) -> moved(2, newValue.doubleValue()));
+        window.heightProperty().addListener((observable, oldValue, newValue) -> moved(3, newValue.doubleValue()));
+    }
+
+    private void moved(int index, double value) {
+        //a new array each time, so a reader never sees half of a change
+        double[] changed = geometry.clone();
+        changed[index] = value;
+        geometry = changed;
+    }
+
     public void saveIni() {
-        try {
-            Wini ini = new Wini(iniFile);
-            ini.put("Screen", "Horizontal Location", view.getSecondScene().getWindow().getX());
-            ini.put("Screen", "Vertical Location", view.getSecondScene().getWindow().getY());
-            ini.put("Screen", "Width", view.getSecondScene().getWindow().getWidth());
-            ini.put("Screen", "Height", view.getSecondScene().getWindow().getHeight());
-            ini.store();
-        } catch (IOException exception) {
-            LOGGER.error(exception.getMessage());
+        //only the copy of the window geometry is handed over, the file is merged and replaced on the writer thread
+        final double[] window = geometry;
+        if (window == null) {
+            return;//no window shown yet
         }
+        final File file = iniFile;
+        fileWriter.save(file, () -> {
+            try {
+                Wini ini = new Wini(file);
+                ini.put("Screen", "Horizontal Location", window[0]);
+                ini.put("Screen", "Vertical Location", window[1]);
+                ini.put("Screen", "Width", window[2]);
+                ini.put("Screen", "Height", window[3]);
+                StringWriter content = new StringWriter();
+                ini.store(content);
+                return content.toString();
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        });
     }
 
     @Override
     public void startGame() {
+        //without a view this is a server on a host that has no display
+        Window window = view == null ? null : view.getSecondScene().getWindow();
+        if (window != null) {
+            trackWindow(window);
+        }
         //set up model head
         headX = GameConstants.snakeLength + random.nextInt(num / 2);
         headY = GameConstants.snakeLength + random.nextInt(num / 2);
 
-        if (view.getMode().equals("Server")) {
+        if (view == null || view.getMode().equals("Server")) {
             networkOperation();
+        } else if (playbackFile != null) {
+            playReplay(playbackFile);
         } else {
             localOperation();
         }
@@ -300,129 +345,256 @@ public class ServerController extends GameController {
         if (!input.isEmpty()) {
             model.setPlayer(validInput);
         }
+        //the local game is a session without a client, with an engine of its own
+        //the engine gets a random of its own, so the game can be replayed from the seed
+        Session session = new Session(null, 0, model);
+        long seed = random.nextLong();
+        session.setEngine(new GameEngine(model, new Random(seed), GameConstants.foodCount));
+        record(session.getEngine(), seed);
+        show(session);
         view.paintSnake(model.getLength(), headX, headY);
-        showFood();
-        tickUpdate(model, mainSocket, clientAddress, clientPort);
+        showFood(session);
+        tickUpdate(session);
         //enable key event handler
         view.getSecondScene().addEventHandler(KeyEvent.KEY_PRESSED, keyEventHandler);
     }
 
+    private void record(GameEngine engine, long seed) {
+        if (replayFile == null) {
+            return;
+        }
+        //the game is kept in memory and appended by the file writer once it ends, the tick never waits on the disk
+        final File file = replayFile;
+        engine.setRecorder(new ReplayRecorder(bytes -> fileWriter.append(file, bytes), seed, engine.getModel(), GameConstants.foodCount));
+    }
+
+    public void playReplay(File file) {
+        //the recorded game is simulated again and painted at the speed it was played
+        ReplayPlayer replay = null;
+        try (InputStream stream = new BufferedInputStream(new FileInputStream(file))) {
+            List<ReplayPlayer> replays = ReplayPlayer.readAll(stream);
+            if (!replays.isEmpty()) {
+                replay = replays.get(replays.size() - 1);
+            }
+        } catch (IOException exception) {
+            LOGGER.error("Cannot read replay: {}", exception.getMessage());
+            return;
+        }
+        if (replay == null) {
+            LOGGER.info("No replay yet.");
+            return;
+        }
+        final ReplayPlayer player = replay;
+        GameEngine engine = player.start(new GameViewListener(view));
+        GameModel model = engine.getModel();
+        synchronized (models) {
+            models.add(model);
+        }
+        Session session = new Session(null, 0, model);
+        session.setEngine(engine);
+        session.setShown(true);
+        spectated = session;
+        view.paintSnake(model.getLength(), model.getHeadX(), model.getHeadY());
+        scheduler.register(model, new Runnable() {
+            @Override
+            public void run() {
+                player.step();
+            }
+        });
+    }
+
     public GameModel createNewModel() {
-        //create a new model
+        //create a new model, every game is played on its own board
         GameModel model = new GameModel();
-        models.add(model);
-        model.initialiseSnake(GameConstants.snakeLength, headX, headY, grid);
+        synchronized (models) {
+            models.add(model);
+        }
+        model.setBoard(new Board(num, num));
+        model.initialiseSnake(GameConstants.snakeLength, headX, headY);
         model.setIsStart(true);
         return model;
     }
 
-    private void networkOperation() {
-        //open a udp socket
+    public GameModel createPlayerModel() {
+        //the snake of a network player is put on the board of its room when it joins
+        GameModel model = new GameModel();
+        synchronized (models) {
+            models.add(model);
+        }
+        return model;
+    }
+
+    public void networkOperation() {
+        //players are grouped into rooms, each room ticked by one worker
+        rooms = new RoomManager(Runtime.getRuntime().availableProcessors(), num, num, GameConstants.roomSize,
+                GameConstants.snakeLength, roomHost, metrics);
+        metrics.setLinks(() -> {
+            List<LinkStats> links = new ArrayList<>();
+            for (Session session : sessions.all()) {
+                links.add(session.getLink());
+            }
+            return links;
+        });
+        //one selector loop receives from every client and sends every reply, each datagram goes straight to the session of its sender
         try {
-            mainSocket = new DatagramSocket(8088);
-            DatagramSocket socket1 = new DatagramSocket(8089);
-            DatagramSocket socket2 = new DatagramSocket(8090);
-            Set<String> clientSet = new LinkedHashSet<>();
-            Runnable mainRun = new Runnable() {
+            network = new NetworkLoop(port, new NetworkLoop.Receiver() {
                 @Override
-                public void run() {
-                    while (true) {
-                        try {
-                            //receive info from client
-                            DatagramPacket request = new DatagramPacket(new byte[GameConstants.longPacketLength], GameConstants.longPacketLength);
-                            mainSocket.receive(request);
-                            clientAddress = request.getAddress();
-                            clientPort = request.getPort();
-                            if (clientPort==1111){
-                                DatagramPacket intermittentPacket1 = new DatagramPacket(request.getData(), request.getLength(), InetAddress.getByName("localhost"), 8089);
-                                mainSocket.send(intermittentPacket1);
-                            }
-                            if(clientPort==2222){
-                                DatagramPacket intermittentPacket2 = new DatagramPacket(request.getData(), request.getLength(), InetAddress.getByName("localhost"), 8090);
-                                mainSocket.send(intermittentPacket2);
-                            }
-                        } catch (IOException ex) {
-                            ex.printStackTrace();
-                        }
-                    }
+                public void receive(SocketAddress address, Packet packet) {
+                    handleDatagram(address, packet);
                 }
-            };
-            Thread mainThread = new Thread(mainRun);
-            mainThread.start();
 
-            //create a new thread for every client
-            Runnable interRun1 = new Runnable() {
                 @Override
-                public void run() {
-                    GameModel model = createNewModel();
-
-                    try {
-                        int count = 0;
-                        while (model.getIsStart().equals(true)) {
-                            DatagramPacket intermittentRequest = new DatagramPacket(new byte[GameConstants.longPacketLength], GameConstants.longPacketLength);
-                            socket1.receive(intermittentRequest);
-
-                            //get received bytes
-                            byte[] recData = intermittentRequest.getData();
-                            Packet packet = SerializationUtils.deserialize(recData);
-
-                            //differentiate received element
-                            diffElement(model, packet);
-
-                            count++;
-
-                            //after receiving player and level, send info to client and start the tick
-                            if (count == 2) {
-                                sendSnakeInfoToClient(socket1, model, clientAddress, clientPort);
-                                sendFoodToClient(socket1, clientAddress, clientPort);
-                                tickUpdate(model, socket1,clientAddress, clientPort);
-                            }
-                        }
-                    } catch (IOException e) {
-                        e.printStackTrace();
-                    }
+                public void idle(long now) {
+                    expireSessions(now);
                 }
-            };
-            Thread interThread1 = new Thread(interRun1);
-            interThread1.start();
+            }, metrics);
+        } catch (IOException exception) {
+            LOGGER.error("Cannot open server channel: {}", exception.getMessage());
+            return;
+        }
+        metrics.setNetwork(network);
+        network.start();
+        metrics.start(METRICS_PERIOD);
+    }
 
-            Runnable interRun2 = new Runnable() {
-                @Override
-                public void run() {
-                    GameModel model = createNewModel();
-
-                    try {
-                        int count = 0;
-                        while (model.getIsStart().equals(true)) {
-                            DatagramPacket intermittentRequest = new DatagramPacket(new byte[GameConstants.longPacketLength], GameConstants.longPacketLength);
-                            socket2.receive(intermittentRequest);
-
-                            //get received bytes
-                            byte[] recData = intermittentRequest.getData();
-                            Packet packet = SerializationUtils.deserialize(recData);
-
-                            //differentiate received element
-                            diffElement(model, packet);
-
-                            count++;
-
-                            //after receiving player and level, send info to client and start the tick
-                            if (count == 2) {
-                                sendSnakeInfoToClient(socket2, model, clientAddress, clientPort);
-                                sendFoodToClient(socket2, clientAddress, clientPort);
-                                tickUpdate(model, socket2, clientAddress, clientPort);
-                            }
-                        }
-                    } catch (IOException e) {
-                        e.printStackTrace();
+    public void handleDatagram(SocketAddress address, Packet packet) {
+        Session session = sessions.get(address);
+        if (session == null) {
+            //only the player name or level opens a game, anything else from an unknown sender is stale
+            if (packet.getType() != MessageType.NAME && packet.getType() != MessageType.LEVEL) {
+                return;
+            }
+            session = sessions.open(address, createPlayerModel());
+            sendToClient(session, MessageType.WELCOME, PacketCodec.fields(session.getToken()));
+        } else if (!sessions.accepts(session, packet.getSession())) {
+            LOGGER.warn("Dropped datagram with wrong session token from {}", address);
+            return;
+        }
+        session.setLastHeard(System.nanoTime());
+
+        //differentiate received element
+        switch (packet.getType()) {
+            case ACK:
+                int acked = PacketCodec.field(packet.getPayload(), 0);
+                session.getSync().acknowledge(acked);
+                session.getLink().acked(acked, System.nanoTime());
+                break;
+            case NAME:
+                session.setNamed(true);
+                diffElement(session.getModel(), packet);
+                break;
+            case LEVEL:
+                session.setLevelled(true);
+                diffElement(session.getModel(), packet);
+                break;
+            default:
+                diffElement(session.getModel(), packet);
+        }
+
+        //after receiving player and level, the player joins a room of its level, which sends the first state
+        if (!session.isStarted() && session.isNamed() && session.isLevelled()) {
+            session.setStarted(true);
+            rooms.join(session);
+        }
+    }
+
+    private Room.Host roomHost = new Room.Host() {
+        @Override
+        public void opened(Room room) {
+            //the first room is painted on the server's view, the next one once it closes
+            if (shownRoom == null && view != null) {
+                shownRoom = room;
+                room.getArena().setListener(new GameViewListener(view));
+            }
+        }
+
+        @Override
+        public void closed(Room room) {
+            if (shownRoom == room) {
+                shownRoom = null;
+            }
+        }
+
+        @Override
+        public void joined(Session session) {
+            GameModel model = session.getModel();
+            if (session.getRoom() == shownRoom) {
+                session.setShown(true);
+                view.paintSnake(model.getLength(), model.getHeadX(), model.getHeadY());
+            }
+            session.getSync().start(model);
+            sendStateToClient(session);
+        }
+
+        @Override
+        public void rejected(Session session) {
+            LOGGER.warn("No space for {} in room {}", session.getModel().getPlayer(), session.getRoom().getId());
+            sendToClient(session, MessageType.HIT, NO_PAYLOAD);
+            leave(session);
+        }
+
+        @Override
+        public void update(Session session) {
+            session.getSync().record(session.getModel());
+            session.getLink().sent(session.getSync().getTick(), System.nanoTime());
+            sendStateToClient(session);
+        }
+
+        @Override
+        public void finished(Session session) {
+            GameModel model = session.getModel();
+            if (session.isShown()) {
+                //heads of this tick and food placed after the death may lie on cells the dead snake left
+                Arena arena = session.getRoom().getArena();
+                for (int i = 0; i < model.getLength(); i++) {
+                    int x = model.getX(i);
+                    int y = model.getY(i);
+                    if (!arena.getBoard().isOccupied(x, y) && arena.getFood().indexAt(x, y) < 0) {
+                        view.paintTail(x, y);
                     }
                 }
-            };
-            Thread interThread2 = new Thread(interRun2);
-            interThread2.start();
-        } catch (Exception e) {
-            e.printStackTrace();
+            }
+            recordScore(model);
+            //the game is over, by the wall or by a body, the client gets the best games of its level and the session is closed
+            sendToClient(session, MessageType.LEADERBOARD, leaders(Level.of(model.getSpeed())));
+            sendToClient(session, MessageType.HIT, NO_PAYLOAD);
+            leave(session);
+        }
+    };//what the server does for the players of its rooms, runs on the worker of the room
+
+    private void leave(Session session) {
+        closeSession(session);
+        rooms.leave(session);
+    }
+
+    private void closeSession(Session session) {
+        sessions.close(session);
+        synchronized (models) {
+            models.remove(session.getModel());
+        }
+    }
+
+    public void expireSessions(long now) {
+        //a client that sent its name but never its level, or went silent before that, has no game that would end,
+        //runs on the network loop like the datagrams that would start the game
+        for (Session session : sessions.expire(now, TimeUnit.SECONDS.toNanos(GameConstants.sessionTimeout))) {
+            LOGGER.info("Session of {} expired before its game started", session.getAddress());
+            closeSession(session);
+        }
+    }
+
+    public int getLocalPort() {
+        return network == null ? -1 : network.getLocalPort();
+    }
+
+    public void stopNetwork() {
+        if (rooms != null) {
+            rooms.shutdown();
+        }
+        if (network != null) {
+            network.close();
         }
+        metrics.stop();
     }
 
     @Override
@@ -430,6 +602,7 @@ public class ServerController extends GameController {
         //create the file to store best player and best score when there is no such file
         setRecordFile(createFile(record));
         setIniFile(createFile(ini));
+        setReplayFile(createFile(REPLAY));
         //read the best play and best score from the file
         readFromRecord();
         getIni();
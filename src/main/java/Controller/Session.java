@@ -0,0 +1,49 @@
+package Controller;
+
+import Engine.GameEngine;
+import Metrics.LinkStats;
+import Model.Board;
+import Model.GameModel;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.net.SocketAddress;
+
+//one player hosted by the server: the snake, what runs it, a room shared with other players or an engine
+//for a game of its own, and what its client has seen
+@Getter
+@Setter
+public class Session {
+    private final SocketAddress address;//where the client sends from, null for the local game
+    private final int token;//number the client repeats in every datagram once it has been welcomed
+    private final GameModel model;
+    private final StateSync sync = new StateSync();
+    private final PacketCodec codec = new PacketCodec();//numbers and encodes what this session sends
+    private final LinkStats link = new LinkStats();//round trip and loss of the client
+    private GameEngine engine;//runs a game of its own, null when playing in a room
+    private Room room;//the arena the snake plays in, null for a game of its own
+    private boolean named;//whether the player name has arrived
+    private boolean levelled;//whether the game level has arrived
+    private boolean started;
+    private volatile boolean confirmed;//whether the client has sent its token back, 0 is refused from then on
+    private boolean shown;//whether this game is painted on the server's own view
+    private volatile long lastHeard;//nanos of the last datagram the client sent
+
+    public Session(SocketAddress address, int token, GameModel model) {
+        this.address = address;
+        this.token = token;
+        this.model = model;
+    }
+
+    public Board getBoard() {
+        return model.getBoard();
+    }
+
+    public int getFoodX() {
+        return room != null ? room.getArena().getFoodX() : engine.getFoodX();
+    }
+
+    public int getFoodY() {
+        return room != null ? room.getArena().getFoodY() : engine.getFoodY();
+    }
+}
@@ -0,0 +1,68 @@
+package Controller;
+
+import Model.GameModel;
+
+import java.net.SocketAddress;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+//every network game the server hosts, keyed by the address its client sends from
+public class SessionRegistry {
+    private final Map<SocketAddress, Session> sessions = new ConcurrentHashMap<>();
+    private final Random random = new SecureRandom();
+
+    public Session get(SocketAddress address) {
+        return sessions.get(address);
+    }
+
+    public Session open(SocketAddress address, GameModel model) {
+        //0 is what a client sends before it has been welcomed, so it is never handed out
+        int token;
+        do {
+            token = random.nextInt();
+        } while (token == 0);
+        Session session = new Session(address, token, model);
+        session.setLastHeard(System.nanoTime());
+        sessions.put(address, session);
+        return session;
+    }
+
+    public boolean accepts(Session session, int token) {
+        //a client that has not learned its token yet sends 0, once it has sent the token back 0 is refused,
+        //so a sender spoofing the client's address cannot get in without knowing the token
+        if (token == session.getToken()) {
+            session.setConfirmed(true);
+            return true;
+        }
+        return token == 0 && !session.isConfirmed();
+    }
+
+    public void close(Session session) {
+        sessions.remove(session.getAddress(), session);
+    }
+
+    public List<Session> expire(long now, long timeoutNanos) {
+        //a session is only closed by the end of its game, so one that never started is dropped once its client is silent
+        List<Session> expired = new ArrayList<>();
+        for (Session session : sessions.values()) {
+            if (!session.isStarted() && now - session.getLastHeard() > timeoutNanos
+                    && sessions.remove(session.getAddress(), session)) {
+                expired.add(session);
+            }
+        }
+        return expired;
+    }
+
+    public Collection<Session> all() {
+        return sessions.values();
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+}
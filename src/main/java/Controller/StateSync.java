@@ -0,0 +1,133 @@
+package Controller;
+
+import Constants.GameConstants;
+import Model.Direction;
+import Model.GameModel;
+import lombok.Getter;
+
+import java.nio.ByteBuffer;
+
+//server side view of what one client has seen: every tick is recorded as the new head and whether the tail stayed,
+//and each update is encoded against the last tick the client acknowledged, falling back to a full snapshot
+//when that baseline has left the history or was never acknowledged
+@Getter
+public class StateSync {
+    public static final int HISTORY = 32;//ticks kept for deltas, must be a power of two
+    private final int[] heads = new int[HISTORY];//packed head cell of each recorded tick
+    private final boolean[] grown = new boolean[HISTORY];//whether the tail stayed in place on that tick
+    private ByteBuffer scratch = ByteBuffer.allocate(GameConstants.longPacketLength);//grown for long snakes
+    private volatile int tick;//last recorded tick
+    private int lastLength;
+    private volatile int ackedTick = -1;//last tick the client confirmed, -1 before the first acknowledgement
+
+    public void start(GameModel model) {
+        tick = 0;
+        lastLength = model.getLength();
+    }
+
+    public void record(GameModel model) {
+        tick = tick + 1;
+        heads[tick & (HISTORY - 1)] = GameModel.pack(model.getHeadX(), model.getHeadY());
+        grown[tick & (HISTORY - 1)] = model.getLength() > lastLength;
+        lastLength = model.getLength();
+    }
+
+    public void acknowledge(int acked) {
+        //acknowledgements can arrive out of order, only ever move the baseline forward
+        if (acked > ackedTick && acked <= tick) {
+            ackedTick = acked;
+        }
+    }
+
+    public MessageType nextType() {
+        int baseline = ackedTick;
+        if (baseline < 0 || tick - baseline >= HISTORY) {
+            return MessageType.SNAPSHOT;
+        }
+        return MessageType.DELTA;
+    }
+
+    public byte[] encode(MessageType type, GameModel model, int foodX, int foodY) {
+        ByteBuffer encoded = write(type, model, foodX, foodY);
+        byte[] payload = new byte[encoded.remaining()];
+        encoded.get(payload);
+        return payload;
+    }
+
+    //the returned buffer is this sync's scratch space, valid until the next call
+    public ByteBuffer write(MessageType type, GameModel model, int foodX, int foodY) {
+        scratch.clear();
+        if (type == MessageType.SNAPSHOT) {
+            encodeSnapshot(model, foodX, foodY);
+        } else {
+            encodeDelta(model, foodX, foodY);
+        }
+        scratch.flip();
+        return scratch;
+    }
+
+    private void encodeSnapshot(GameModel model, int foodX, int foodY) {
+        //the cells repeated at the tail while the snake grows are sent as a count, not as cells
+        int cells = model.getLength() - model.getGrowth();
+        //eight varints of five bytes at most, then one byte for every three steps of the body
+        int needed = 8 * 5 + cells / 3 + 1;
+        if (scratch.capacity() < needed) {
+            scratch = ByteBuffer.allocate(Math.max(needed, scratch.capacity() * 2));
+        }
+        PacketCodec.putVarint(scratch, tick);
+        PacketCodec.putVarint(scratch, cells);
+        PacketCodec.putVarint(scratch, model.getGrowth());
+        putCommon(model, foodX, foodY);
+        PacketCodec.putVarint(scratch, model.getHeadX());
+        PacketCodec.putVarint(scratch, model.getHeadY());
+        //the body is contiguous, so each following cell is one of four steps, packed three steps to a field
+        int packed = 0;
+        int count = 0;
+        for (int i = 1; i < cells; i++) {
+            packed = packed | step(model.getX(i - 1), model.getY(i - 1), model.getX(i), model.getY(i)) << (count * 2);
+            count++;
+            if (count == 3) {
+                PacketCodec.putVarint(scratch, packed);
+                packed = 0;
+                count = 0;
+            }
+        }
+        if (count > 0) {
+            PacketCodec.putVarint(scratch, packed);
+        }
+    }
+
+    private void encodeDelta(GameModel model, int foodX, int foodY) {
+        int baseline = ackedTick;
+        PacketCodec.putVarint(scratch, baseline);
+        PacketCodec.putVarint(scratch, tick);
+        putCommon(model, foodX, foodY);
+        for (int t = baseline + 1; t <= tick; t++) {
+            int head = heads[t & (HISTORY - 1)];
+            PacketCodec.putVarint(scratch, GameModel.cellX(head));
+            PacketCodec.putVarint(scratch, GameModel.cellY(head));
+            PacketCodec.putVarint(scratch, grown[t & (HISTORY - 1)] ? 1 : 0);
+        }
+    }
+
+    private void putCommon(GameModel model, int foodX, int foodY) {
+        PacketCodec.putVarint(scratch, model.getDirection().ordinal());
+        PacketCodec.putVarint(scratch, foodX);
+        PacketCodec.putVarint(scratch, foodY);
+        PacketCodec.putVarint(scratch, model.getScore());
+        PacketCodec.putVarint(scratch, model.getInputSequence());
+    }
+
+    public static int step(int fromX, int fromY, int toX, int toY) {
+        if (toY < fromY) {
+            return Direction.UP.ordinal();
+        }
+        if (toY > fromY) {
+            return Direction.DOWN.ordinal();
+        }
+        if (toX < fromX) {
+            return Direction.LEFT.ordinal();
+        }
+        return Direction.RIGHT.ordinal();
+    }
+}
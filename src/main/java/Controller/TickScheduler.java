@@ -0,0 +1,127 @@
+package Controller;
+
+import Model.GameModel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//one clock for every game: models with the same speed share a bucket that is ticked at a fixed rate,
+//so the period does not drift with processing time and the thread count does not grow with players
+public class TickScheduler {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TickScheduler.class);
+    private final ScheduledExecutorService executor;
+    private final Map<Integer, Bucket> buckets = new ConcurrentHashMap<>();
+
+    public TickScheduler(int threads) {
+        AtomicInteger count = new AtomicInteger();
+        executor = Executors.newScheduledThreadPool(threads, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "tick-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    public void register(GameModel model, Runnable step) {
+        //the bucket is picked once, by the speed the model has when its game starts
+        Bucket bucket = buckets.computeIfAbsent(model.getSpeed(), speed -> {
+            Bucket created = new Bucket(speed);
+            executor.scheduleAtFixedRate(created, speed, speed, TimeUnit.MILLISECONDS);
+            return created;
+        });
+        bucket.entries.add(new Entry(model, step));
+    }
+
+    public long getMaxJitterNanos() {
+        long max = 0;
+        for (Bucket bucket : buckets.values()) {
+            max = Math.max(max, bucket.maxJitter);
+        }
+        return max;
+    }//the latest any tick has started compared to its slot on the shared clock
+
+    public long getMeanJitterNanos() {
+        long total = 0;
+        long ticks = 0;
+        for (Bucket bucket : buckets.values()) {
+            total += bucket.totalJitter;
+            ticks += bucket.ticks;
+        }
+        return ticks == 0 ? 0 : total / ticks;
+    }
+
+    public int getModelCount() {
+        int count = 0;
+        for (Bucket bucket : buckets.values()) {
+            count += bucket.entries.size();
+        }
+        return count;
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static class Entry {
+        private final GameModel model;
+        private final Runnable step;
+
+        private Entry(GameModel model, Runnable step) {
+            this.model = model;
+            this.step = step;
+        }
+    }
+
+    private static class Bucket implements Runnable {
+        private final long period;
+        private final List<Entry> entries = new CopyOnWriteArrayList<>();
+        private long firstTick;
+        //a fixed rate task never overlaps itself, so the statistics are only written by one thread at a time
+        private volatile long ticks;
+        private volatile long maxJitter;
+        private volatile long totalJitter;
+
+        private Bucket(int speed) {
+            period = TimeUnit.MILLISECONDS.toNanos(speed);
+        }
+
+        @Override
+        public void run() {
+            long now = System.nanoTime();
+            if (ticks == 0) {
+                firstTick = now;
+            }
+            long jitter = now - (firstTick + ticks * period);
+            totalJitter = totalJitter + jitter;
+            maxJitter = Math.max(maxJitter, jitter);
+            ticks = ticks + 1;
+
+            for (Entry entry : entries) {
+                //only run when the game start status is true, finished games leave the bucket
+                if (!entry.model.getIsStart()) {
+                    entries.remove(entry);
+                    continue;
+                }
+                try {
+                    entry.step.run();
+                } catch (RuntimeException exception) {
+                    //an exception would cancel the whole bucket, so only the failing game is dropped
+                    LOGGER.error("tick failed for {}", entry.model.getPlayer(), exception);
+                    entry.model.setIsStart(false);
+                    entries.remove(entry);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package Engine;
+
+import Model.Board;
+import Model.GameModel;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+//many snakes on one board, all moved by the same tick: every snake works out its next cell in parallel,
+//the collisions are then settled in snake order so the outcome never depends on thread timing,
+//and the moves are applied in parallel again, every tail leaving before any head arrives
+public class Arena {
+    private static final int SPLIT = 32;//snakes handled by one task before the work is split further
+    @Getter
+    private final Board board;
+    private final Random random;
+    private final ForkJoinPool pool;
+    @Getter
+    private final List<GameModel> snakes = new ArrayList<>();
+    @Setter
+    private GameListener listener = new GameListener() {
+    };
+    @Getter
+    private final Food food;
+    @Getter
+    private int tick;
+    //per snake, filled in for every tick
+    private int[] next = new int[0];//cell the head moves to, -1 into the wall
+    private int[] tails = new int[0];//tail cell before the move
+    private boolean[] eats = new boolean[0];//the head lies on food, as in GameEngine the snake eats it before moving on
+    private int[] meals = new int[0];//the food item eaten
+    private boolean[] dies = new boolean[0];
+    //per cell, the snake that claimed it this tick, stamped with the tick so nothing needs clearing
+    private final int[] claimedBy;
+    private final int[] claimedAt;
+    private final int[] leavesAt;//tick in which the tail on the cell leaves it
+
+    public Arena(Board board, Random random, ForkJoinPool pool, int foodCount) {
+        this.board = board;
+        this.random = random;
+        this.pool = pool;
+        this.food = new Food(foodCount);
+        claimedBy = new int[board.getColumns() * board.getRows()];
+        claimedAt = new int[board.getColumns() * board.getRows()];
+        leavesAt = new int[board.getColumns() * board.getRows()];
+    }
+
+    public Arena(Board board, Random random, ForkJoinPool pool) {
+        this(board, random, pool, 1);
+    }
+
+    public Arena(Board board, Random random) {
+        this(board, random, ForkJoinPool.commonPool(), 1);
+    }
+
+    public void add(GameModel snake) {
+        //the snake must already lie on this arena's board
+        snakes.add(snake);
+        int count = snakes.size();
+        if (next.length < count) {
+            int capacity = Math.max(count, next.length * 2);
+            next = new int[capacity];
+            tails = new int[capacity];
+            eats = new boolean[capacity];
+            meals = new int[capacity];
+            dies = new boolean[capacity];
+        }
+    }
+
+    public boolean spawn(GameModel snake, int length) {
+        //look for a free stretch of a row with a free cell in front of it, the snake starts moving right,
+        //rows are searched from a random one so the snakes spread over the board
+        int columns = board.getColumns();
+        int rows = board.getRows();
+        int firstRow = random.nextInt(rows);
+        for (int r = 0; r < rows; r++) {
+            int y = (firstRow + r) % rows;
+            int run = 0;
+            for (int x = 0; x < columns - 1; x++) {
+                run = free(x, y) ? run + 1 : 0;
+                if (run >= length && free(x + 1, y)) {
+                    snake.setBoard(board);
+                    snake.initialiseSnake(length, x, y);
+                    snake.setIsStart(true);
+                    add(snake);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public void remove(GameModel snake) {
+        //a snake that died in step has left the board already, its cells may hold a head of the same tick by now,
+        //only a snake taken out while still running is cleared from the board here
+        if (snake.getIsStart()) {
+            snake.removeFromBoard();
+            snake.setIsStart(false);
+        }
+        snakes.remove(snake);
+    }
+
+    private boolean free(int x, int y) {
+        return !board.isOccupied(x, y) && food.indexAt(x, y) < 0;
+    }
+
+    public void placeFood() {
+        for (int i = 0; i < food.getCount(); i++) {
+            placeFood(i);
+        }
+    }
+
+    public void placeFood(int index) {
+        //never drop food onto a snake, the board hands out a free cell directly
+        if (food.place(index, board, random)) {
+            listener.foodPlaced(food.getX(index), food.getY(index));
+        }
+    }
+
+    public int getFoodX() {
+        return food.getX(0);
+    }
+
+    public int getFoodY() {
+        return food.getY(0);
+    }
+
+    public void setFood(int x, int y) {
+        food.set(0, x, y);
+    }
+
+    //moves every running snake by one cell, returns how many are still running
+    public int step() {
+        tick = tick + 1;
+        int count = snakes.size();
+        run(new Plan(0, count), count);
+        resolve(count);
+        for (int i = 0; i < count; i++) {
+            if (snakes.get(i).getIsStart() && dies[i]) {
+                //a dead snake leaves the board before anyone moves, its cells are free for the heads of this tick
+                snakes.get(i).removeFromBoard();
+            }
+        }
+        run(new Release(0, count), count);
+        run(new Push(0, count), count);
+
+        int running = 0;
+        for (int i = 0; i < count; i++) {
+            GameModel snake = snakes.get(i);
+            if (!snake.getIsStart()) {
+                continue;
+            }
+            if (dies[i]) {
+                //the food under the head is eaten even by a snake that dies on this move, as in a local game
+                if (eats[i]) {
+                    snake.increaseLength();
+                    listener.scored(snake);
+                    placeFood(meals[i]);
+                }
+                snake.setIsStart(false);
+                listener.ended(snake);
+                continue;
+            }
+            listener.moved(snake, GameModel.cellX(tails[i]), GameModel.cellY(tails[i]), eats[i]);
+            if (eats[i]) {
+                listener.scored(snake);
+                placeFood(meals[i]);
+            }
+            running++;
+        }
+        return running;
+    }
+
+    private void run(RecursiveAction task, int count) {
+        //a small arena is cheaper to move on the calling thread than to hand over to the pool
+        if (count <= SPLIT) {
+            task.invoke();
+        } else {
+            pool.invoke(task);
+        }
+    }
+
+    private void plan(int i) {
+        GameModel snake = snakes.get(i);
+        if (!snake.getIsStart()) {
+            return;
+        }
+        snake.applyInputs();//each snake is planned by one task, so its queue still has a single reader
+        next[i] = snake.nextHead(board.getColumns(), board.getRows());
+        tails[i] = GameModel.pack(snake.getTailX(), snake.getTailY());
+        //only the snake whose head is on the food can eat it, so no two snakes share a meal
+        meals[i] = food.indexAt(snake.getHeadX(), snake.getHeadY());
+        eats[i] = meals[i] >= 0;
+        dies[i] = next[i] < 0;
+    }
+
+    private void resolve(int count) {
+        //head to head: every snake entering a cell another snake also enters dies, whatever the order
+        for (int i = 0; i < count; i++) {
+            if (!snakes.get(i).getIsStart() || next[i] < 0) {
+                continue;
+            }
+            int cell = index(next[i]);
+            if (claimedAt[cell] == tick) {
+                dies[i] = true;
+                dies[claimedBy[cell]] = true;
+            } else {
+                claimedAt[cell] = tick;
+                claimedBy[cell] = i;
+            }
+        }
+        //a tail leaves its cell when its snake survived the walls and the other heads and is not growing
+        for (int i = 0; i < count; i++) {
+            GameModel snake = snakes.get(i);
+            if (snake.getIsStart() && !dies[i] && !eats[i] && snake.getGrowth() == 0) {
+                leavesAt[index(tails[i])] = tick;
+            }
+        }
+        //head to body: a cell still covered after those tails have left is a body
+        for (int i = 0; i < count; i++) {
+            if (!snakes.get(i).getIsStart() || dies[i]) {
+                continue;
+            }
+            if (board.isOccupied(GameModel.cellX(next[i]), GameModel.cellY(next[i])) && leavesAt[index(next[i])] != tick) {
+                dies[i] = true;
+            }
+        }
+    }
+
+    private int index(int cell) {
+        return GameModel.cellX(cell) * board.getRows() + GameModel.cellY(cell);
+    }
+
+    private boolean moving(int i) {
+        return snakes.get(i).getIsStart() && !dies[i];
+    }
+
+    private class Plan extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int from;
+        private final int to;
+
+        private Plan(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > SPLIT) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Plan(from, middle), new Plan(middle, to));
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                plan(i);
+            }
+        }
+    }
+
+    private class Release extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int from;
+        private final int to;
+
+        private Release(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > SPLIT) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Release(from, middle), new Release(middle, to));
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                if (!moving(i)) {
+                    continue;
+                }
+                GameModel snake = snakes.get(i);
+                if (eats[i]) {
+                    snake.increaseLength();
+                }
+                snake.releaseTail();
+            }
+        }
+    }
+
+    private class Push extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int from;
+        private final int to;
+
+        private Push(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > SPLIT) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Push(from, middle), new Push(middle, to));
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                if (!moving(i)) {
+                    continue;
+                }
+                GameModel snake = snakes.get(i);
+                //the cells were settled already, the board updates are atomic so snakes can enter them together
+                snake.pushHead(GameModel.cellX(next[i]), GameModel.cellY(next[i]));
+                snake.setLastDirection(snake.getDirection());
+            }
+        }
+    }
+}
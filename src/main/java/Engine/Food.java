@@ -0,0 +1,70 @@
+package Engine;
+
+import Model.Board;
+import Model.GameModel;
+
+import java.util.Arrays;
+import java.util.Random;
+
+//the food items on one board, each is a packed cell, or -1 while there was no free cell to put it on
+public class Food {
+    private final int[] cells;
+
+    public Food(int count) {
+        cells = new int[count];
+        Arrays.fill(cells, -1);
+    }
+
+    public int getCount() {
+        return cells.length;
+    }
+
+    public int getX(int index) {
+        return cells[index] < 0 ? -1 : GameModel.cellX(cells[index]);
+    }
+
+    public int getY(int index) {
+        return cells[index] < 0 ? -1 : GameModel.cellY(cells[index]);
+    }
+
+    public void set(int index, int x, int y) {
+        cells[index] = GameModel.pack(x, y);
+    }
+
+    //the item lying on the cell, -1 when there is none
+    public int indexAt(int x, int y) {
+        int cell = GameModel.pack(x, y);
+        for (int i = 0; i < cells.length; i++) {
+            if (cells[i] == cell) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public boolean place(int index, Board board, Random random) {
+        //a random free cell comes straight from the board, it is only picked again when another item lies there
+        cells[index] = -1;
+        int cell = board.randomFreeCell(random);
+        if (cell < 0) {
+            return false;
+        }
+        if (indexAt(GameModel.cellX(cell), GameModel.cellY(cell)) >= 0) {
+            //the few free cells left may all hold food, so step through them once instead of retrying at random
+            int free = board.getFreeCount();
+            int start = random.nextInt(Math.max(free, 1));
+            cell = -1;
+            for (int i = 0; i < free && cell < 0; i++) {
+                int candidate = board.freeCell(start + i);
+                if (candidate >= 0 && indexAt(GameModel.cellX(candidate), GameModel.cellY(candidate)) < 0) {
+                    cell = candidate;
+                }
+            }
+            if (cell < 0) {
+                return false;
+            }
+        }
+        cells[index] = cell;
+        return true;
+    }
+}
@@ -0,0 +1,107 @@
+package Engine;
+
+import Model.Board;
+import Model.GameModel;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Random;
+
+//the rules of one game, food, eating, moving, collisions and scoring, run on the model and its board alone,
+//so a game can be simulated without a display and the view only follows it through a listener
+@Getter
+@Setter
+public class GameEngine {
+    private final GameModel model;
+    private final Board board;
+    private final Random random;
+    private GameListener listener = new GameListener() {
+    };
+    private final Food food;
+    private ReplayRecorder recorder;//writes the game to a replay log when set
+
+    public GameEngine(GameModel model, Random random) {
+        this(model, random, 1);
+    }
+
+    public GameEngine(GameModel model, Random random, int foodCount) {
+        this.model = model;
+        this.board = model.getBoard();
+        this.random = random;
+        this.food = new Food(foodCount);
+    }
+
+    public void placeFood() {
+        for (int i = 0; i < food.getCount(); i++) {
+            placeFood(i);
+        }
+    }
+
+    public void placeFood(int index) {
+        //never drop food onto a snake, the board hands out a free cell directly
+        if (food.place(index, board, random)) {
+            listener.foodPlaced(food.getX(index), food.getY(index));
+        }
+    }
+
+    public int getFoodX() {
+        return food.getX(0);
+    }
+
+    public int getFoodY() {
+        return food.getY(0);
+    }
+
+    public void setFood(int x, int y) {
+        food.set(0, x, y);
+    }
+
+    //moves the game forward by one tick, returns whether it is still running
+    public boolean step() {
+        model.applyInputs();//the turns queued since the last tick, taken on this thread only
+        if (recorder != null) {
+            recorder.tick(model.getDirection());
+        }
+        boolean grew = false;
+        int eaten = food.indexAt(model.getHeadX(), model.getHeadY());
+        if (eaten >= 0) {
+            //if the positions are the same, then the snake length increases 1, and the current score increases 1
+            model.increaseLength();
+            grew = true;
+            listener.scored(model);
+            placeFood(eaten);
+        }
+        int tailX = model.getTailX();
+        int tailY = model.getTailY();
+        int headX = model.getHeadX();
+        int headY = model.getHeadY();
+        model.updateSnake(board.getColumns(), board.getRows());//change the coordinates of the snake in every move
+        if (model.getHeadX() != headX || model.getHeadY() != headY) {
+            listener.moved(model, tailX, tailY, grew);
+        }
+        //after the move, check if snake head hits a body, the board already knows whether the cell was taken
+        if (model.isHit()) {
+            model.setIsStart(false);
+        }
+        if (!model.getIsStart()) {
+            if (recorder != null) {
+                recorder.end(model);
+            }
+            listener.ended(model);
+            return false;
+        }
+        return true;
+    }
+
+    //runs the game until it ends or the tick limit is reached, without any clock, returns the ticks played
+    public int run(int maxTicks) {
+        int ticks = 0;
+        while (ticks < maxTicks && model.getIsStart()) {
+            ticks++;
+            if (!step()) {
+                break;
+            }
+        }
+        return ticks;
+    }
+}
@@ -0,0 +1,20 @@
+package Engine;
+
+import Model.GameModel;
+
+//what a running game reports, every method does nothing unless a listener such as the view overrides it
+public interface GameListener {
+    default void foodPlaced(int x, int y) {
+    }
+
+    //the head has moved one cell, the tail cell is only left behind when the snake did not grow
+    default void moved(GameModel model, int tailX, int tailY, boolean grew) {
+    }
+
+    default void scored(GameModel model) {
+    }
+
+    //the snake ran into the wall or into a body
+    default void ended(GameModel model) {
+    }
+}
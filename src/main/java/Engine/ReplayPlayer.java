@@ -0,0 +1,194 @@
+package Engine;
+
+import Model.Board;
+import Model.Direction;
+import Model.GameModel;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.CRC32;
+
+//one game read back from a replay log, simulated again by a fresh engine with the same seed and the same turns,
+//either as fast as the engine goes or one step per tick of a clock so it can be watched
+@Getter
+public class ReplayPlayer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReplayPlayer.class);
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private long seed;
+    private int columns;
+    private int rows;
+    private int length;
+    private int headX;
+    private int headY;
+    private Direction direction;
+    private int speed;
+    private int foodCount;
+    private String player;
+    private int[] turnTicks = new int[16];
+    private Direction[] turns = new Direction[16];
+    private int turnCount;
+    private int ticks;//ticks the recorded game lasted
+    private int score;
+    //state of the current playback
+    private GameEngine engine;
+    private int tick;
+    private int nextTurn;
+
+    private ReplayPlayer() {
+    }
+
+    //reads the first game of the log, returns null when the log holds no game
+    public static ReplayPlayer read(InputStream stream) throws IOException {
+        List<ReplayPlayer> replays = readAll(stream);
+        return replays.isEmpty() ? null : replays.get(0);
+    }
+
+    //reads every complete game of the log, a game cut off or damaged while it was written is skipped
+    //and reading goes on from the next MAGIC after its start
+    public static List<ReplayPlayer> readAll(InputStream stream) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] chunk = new byte[8192];
+        int read;
+        while ((read = stream.read(chunk)) > 0) {
+            bytes.write(chunk, 0, read);
+        }
+        ByteBuffer log = ByteBuffer.wrap(bytes.toByteArray());
+        List<ReplayPlayer> replays = new ArrayList<>();
+        int position = 0;
+        while (position + 12 <= log.limit()) {
+            if (log.getInt(position) != ReplayRecorder.MAGIC) {
+                position++;
+                continue;
+            }
+            int length = log.getInt(position + 4);
+            ReplayPlayer replay = null;
+            if (length >= 0 && length <= log.limit() - position - 12) {
+                CRC32 crc = new CRC32();
+                crc.update(log.array(), position + 12, length);
+                if ((int) crc.getValue() == log.getInt(position + 8)) {
+                    replay = parse(new DataInputStream(new ByteArrayInputStream(log.array(), position + 12, length)));
+                }
+            }
+            if (replay == null) {
+                LOGGER.warn("Skipped a damaged game at byte {} of the replay log", position);
+                position++;
+                continue;
+            }
+            replays.add(replay);
+            position += 12 + length;
+        }
+        return replays;
+    }
+
+    private static ReplayPlayer parse(DataInputStream in) {
+        try {
+            int version = in.readUnsignedByte();
+            if (version != ReplayRecorder.VERSION) {
+                LOGGER.warn("Unsupported replay version {}", version);
+                return null;
+            }
+            ReplayPlayer replay = new ReplayPlayer();
+            replay.seed = in.readLong();
+            replay.columns = in.readUnsignedShort();
+            replay.rows = in.readUnsignedShort();
+            replay.length = in.readUnsignedShort();
+            replay.headX = in.readShort();
+            replay.headY = in.readShort();
+            replay.direction = DIRECTIONS[in.readUnsignedByte() & 3];
+            replay.speed = in.readUnsignedShort();
+            replay.foodCount = in.readUnsignedByte();
+            replay.player = in.readUTF();
+            int tick = 0;
+            int value;
+            while ((value = readVarint(in)) != 0) {
+                tick += value >>> 2;
+                replay.addTurn(tick, DIRECTIONS[value & 3]);
+            }
+            replay.ticks = readVarint(in);
+            replay.score = readVarint(in);
+            return replay;
+        } catch (IOException exception) {
+            return null;
+        }
+    }
+
+    private static int readVarint(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed replay");
+    }
+
+    private void addTurn(int tick, Direction turn) {
+        if (turnCount == turnTicks.length) {
+            turnTicks = Arrays.copyOf(turnTicks, turnCount * 2);
+            turns = Arrays.copyOf(turns, turnCount * 2);
+        }
+        turnTicks[turnCount] = tick;
+        turns[turnCount] = turn;
+        turnCount++;
+    }
+
+    //builds the game as it was when the recording started, the listener sees the first food being placed
+    public GameEngine start(GameListener listener) {
+        GameModel model = new GameModel();
+        model.setBoard(new Board(columns, rows));
+        model.initialiseSnake(length, headX, headY);
+        model.setDirection(direction);
+        model.setLastDirection(direction);
+        model.setSpeed(speed);
+        model.setPlayer(player);
+        model.setIsStart(true);
+        engine = new GameEngine(model, new Random(seed), foodCount);
+        engine.setListener(listener);
+        engine.placeFood();
+        tick = 0;
+        nextTurn = 0;
+        return engine;
+    }
+
+    public GameEngine start() {
+        return start(new GameListener() {
+        });
+    }
+
+    //plays one tick, returns whether the game is still running
+    public boolean step() {
+        tick++;
+        if (nextTurn < turnCount && turnTicks[nextTurn] == tick) {
+            //the recorded direction is the one the engine moved in, nothing is queued so it is kept as it is
+            engine.getModel().setDirection(turns[nextTurn]);
+            nextTurn++;
+        }
+        return engine.step();
+    }
+
+    //plays the rest of the game without any clock, returns the ticks played in total
+    public int fastForward() {
+        while (engine.getModel().getIsStart()) {
+            if (!step()) {
+                break;
+            }
+            if (tick >= ticks) {
+                break;
+            }
+        }
+        return tick;
+    }
+}
@@ -0,0 +1,116 @@
+package Engine;
+
+import Model.Direction;
+import Model.GameModel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+//records one game for an append-only replay log: everything the engine starts from, then one varint for every tick
+//the snake changed direction, the food follows from the seed so nothing else needs to be stored.
+//the game is kept in memory and handed over in one piece when it ends, framed as MAGIC, length, checksum, game,
+//so a game cut off while it was written is skipped by the reader instead of spoiling the games after it
+public class ReplayRecorder {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReplayRecorder.class);
+    static final int MAGIC = 0x534E4B52;//"SNKR", marks the start of every game in the log
+    static final int VERSION = 2;
+    private final Consumer<byte[]> sink;
+    private final ByteArrayOutputStream game = new ByteArrayOutputStream(256);
+    private final DataOutputStream out = new DataOutputStream(game);
+    private int tick;
+    private int lastTurn;//tick of the last recorded turn
+    private Direction direction;
+    private boolean ended;
+
+    //the sink gets the framed game once it has ended, on the thread that ends it, so it should not block
+    public ReplayRecorder(Consumer<byte[]> sink, long seed, GameModel model, int foodCount) {
+        this.sink = sink;
+        direction = model.getDirection();
+        try {
+            out.writeByte(VERSION);
+            out.writeLong(seed);
+            out.writeShort(model.getBoard().getColumns());
+            out.writeShort(model.getBoard().getRows());
+            out.writeShort(model.getLength());
+            out.writeShort(model.getHeadX());
+            out.writeShort(model.getHeadY());
+            out.writeByte(direction.ordinal());
+            out.writeShort(model.getSpeed());
+            out.writeByte(foodCount);
+            out.writeUTF(model.getPlayer());
+        } catch (IOException exception) {
+            LOGGER.error("Cannot write replay: {}", exception.getMessage());
+        }
+    }
+
+    //the game is written to the stream when it ends, the stream is left open
+    public ReplayRecorder(OutputStream stream, long seed, GameModel model, int foodCount) {
+        this(bytes -> {
+            try {
+                stream.write(bytes);
+                stream.flush();
+            } catch (IOException exception) {
+                LOGGER.error("Cannot write replay: {}", exception.getMessage());
+            }
+        }, seed, model, foodCount);
+    }
+
+    //called once per tick with the direction the snake moves in, after its queued turns were applied
+    public void tick(Direction taken) {
+        tick++;
+        if (taken == direction) {
+            return;
+        }
+        //the gap to the previous turn and the new direction share one varint, a gap is never zero
+        write(((tick - lastTurn) << 2) | taken.ordinal());
+        lastTurn = tick;
+        direction = taken;
+    }
+
+    public void end(GameModel model) {
+        if (ended) {
+            return;
+        }
+        ended = true;
+        //a zero ends the turns, followed by what the game came to so a replay can be checked against it
+        write(0);
+        write(tick);
+        write(model.getScore());
+        byte[] body = game.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(body, 0, body.length);
+        ByteArrayOutputStream framed = new ByteArrayOutputStream(body.length + 12);
+        try (DataOutputStream frame = new DataOutputStream(framed)) {
+            frame.writeInt(MAGIC);
+            frame.writeInt(body.length);
+            frame.writeInt((int) crc.getValue());
+            frame.write(body);
+        } catch (IOException exception) {
+            LOGGER.error("Cannot write replay: {}", exception.getMessage());
+            return;
+        }
+        sink.accept(framed.toByteArray());
+    }
+
+    public int getTick() {
+        return tick;
+    }
+
+    private void write(int value) {
+        try {
+            while ((value & ~0x7F) != 0) {
+                out.writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.writeByte(value);
+        } catch (IOException exception) {
+            LOGGER.error("Cannot write replay: {}", exception.getMessage());
+        }
+    }
+}
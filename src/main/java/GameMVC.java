@@ -1,4 +1,5 @@
 import Constants.GameConstants;
+import Constants.ScreenConstants;
 import Controller.ClientController;
 import Controller.GameController;
 import Controller.ServerController;
@@ -11,6 +12,7 @@ import javafx.stage.Stage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.util.ArrayList;
 
 public class GameMVC extends Application {
@@ -34,20 +36,30 @@ public class GameMVC extends Application {
             }
             controller.setModels(models);
             controller.setView(view);
+            controller.setGrid(ScreenConstants.grid);
+            controller.setGameWidth(ScreenConstants.gameWidth);
+            controller.setGameHeight(ScreenConstants.gameHeight);
             controller.fileOperation("record.txt", "config.ini");
-            view.createSecondScene(GameConstants.grid, GameConstants.panelWidth,
-                    GameConstants.gameUpBorder, GameConstants.num);
+            if (controller instanceof ServerController && System.getProperty("replay") != null) {
+                //-Dreplay=replay.bin watches the last recorded local game again
+                ((ServerController) controller).setPlaybackFile(new File(System.getProperty("replay")));
+            }
+            view.createSecondScene(ScreenConstants.grid, ScreenConstants.panelWidth,
+                    ScreenConstants.gameUpBorder, GameConstants.num);
             view.getBestPlayerText().setText("Best Player: " + controller.getBestPlayer());
             view.getBestScoreText().setText("Best Score: " + controller.getBestScore());
             Stage stage = (Stage) view.getFirstScene().getWindow();
             stage.setScene(view.getSecondScene());
+            view.startRendering();
             controller.startGame();
         }
     };
 
     @Override
     public void start(Stage primaryStage){
-        view = new GameView(GameConstants.panelHeight, GameConstants.panelWidth);
+        view = new GameView(ScreenConstants.panelHeight, ScreenConstants.panelWidth);
+        //-Dboard=Canvas draws the board on one canvas instead of a node per cell
+        view.setBoardStyle(System.getProperty("board", "Rectangle"));
         primaryStage.setTitle("Game of Snake");
         primaryStage.setScene(view.getFirstScene());
         primaryStage.show();
@@ -0,0 +1,79 @@
+package Metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+//counts of recorded values in buckets that double in width with every power of two, each power split into
+//32 equal buckets, so any value is known to within about 3% with a fixed array and no allocation when recording,
+//any thread may record at any time
+public class Histogram {
+    private static final int SUB_BITS = 5;
+    private static final int SUB = 1 << SUB_BITS;
+    private final AtomicLongArray counts = new AtomicLongArray((64 - SUB_BITS) * SUB);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        counts.incrementAndGet(index(value));
+        count.increment();
+        total.add(value);
+        long current;
+        while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+        }
+    }
+
+    //values below 32 have a bucket each, above that the top six bits of a value pick its bucket
+    static int index(long value) {
+        if (value < SUB) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int mantissa = (int) (value >>> (exponent - SUB_BITS));
+        return (exponent - SUB_BITS + 1) * SUB + mantissa - SUB;
+    }
+
+    //the lowest value that falls into the bucket
+    static long lowest(int index) {
+        if (index < SUB) {
+            return index;
+        }
+        int shift = index / SUB - 1;
+        return (long) (index % SUB + SUB) << shift;
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) total.sum() / n;
+    }
+
+    //the value that percent of the recorded values do not exceed, as the highest value of its bucket
+    public long getPercentile(double percent) {
+        long n = count.sum();
+        if (n == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(percent / 100 * n));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                long highest = i + 1 < counts.length() ? lowest(i + 1) - 1 : Long.MAX_VALUE;
+                return Math.min(highest, max.get());
+            }
+        }
+        return max.get();
+    }
+}
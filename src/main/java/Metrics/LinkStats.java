@@ -0,0 +1,65 @@
+package Metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+//round trip time and loss of one client, estimated from the states the server sends and the ticks the client
+//acknowledges: the time between a state and its acknowledgement is a round trip, and the states skipped between
+//two acknowledgements never arrived or were never confirmed
+public class LinkStats {
+    private static final int HISTORY = 64;//states remembered for matching acknowledgements, a power of two
+    private final AtomicLongArray sentAt = new AtomicLongArray(HISTORY);//nanos the state was sent
+    private final AtomicLongArray sentTick = new AtomicLongArray(HISTORY);
+    private volatile long rtt = -1;//smoothed round trip in nanos, -1 before the first sample
+    private volatile long lastRtt = -1;
+    private volatile int lastAcked = -1;
+    private volatile long delivered;
+    private volatile long lost;
+
+    //called by the thread that sends the states of this client
+    public void sent(int tick, long now) {
+        int slot = tick & (HISTORY - 1);
+        sentAt.set(slot, now);
+        sentTick.set(slot, tick);
+    }
+
+    //called by the thread that receives the acknowledgements of this client
+    public void acked(int tick, long now) {
+        if (tick <= lastAcked) {
+            return;//late or repeated, it says nothing new
+        }
+        if (lastAcked >= 0) {
+            lost = lost + tick - lastAcked - 1;
+        }
+        delivered = delivered + 1;
+        lastAcked = tick;
+        int slot = tick & (HISTORY - 1);
+        if (sentTick.get(slot) == tick) {
+            long sample = now - sentAt.get(slot);
+            lastRtt = sample;
+            //the same smoothing as a TCP round trip estimate, each sample moves it by an eighth
+            rtt = rtt < 0 ? sample : rtt + (sample - rtt) / 8;
+        }
+    }
+
+    public long getRttNanos() {
+        return rtt;
+    }
+
+    public long getLastRttNanos() {
+        return lastRtt;
+    }
+
+    //share of the states sent before the last acknowledgement that were not acknowledged
+    public double getLoss() {
+        long total = delivered + lost;
+        return total == 0 ? 0 : (double) lost / total;
+    }
+
+    public long getDelivered() {
+        return delivered;
+    }
+
+    public long getLost() {
+        return lost;
+    }
+}
@@ -0,0 +1,291 @@
+package Metrics;
+
+import Controller.MessageType;
+import Controller.NetworkLoop;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+//everything the server measures: how long room ticks take and how late they start, the datagrams and bytes
+//of every message type in each direction, and the links of the connected clients, readable over JMX and
+//written to the log at a fixed period
+public class ServerMetrics implements ServerMetricsMXBean {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ServerMetrics.class);
+    private static final String NAME = "GameSnake:type=ServerMetrics";
+    private final Histogram tickTime = new Histogram();//nanos a room tick ran for
+    private final Histogram tickJitter = new Histogram();//nanos a room tick started after its slot
+    private final LongAdder[] datagramsIn = counters();
+    private final LongAdder[] datagramsOut = counters();
+    private final LongAdder[] bytesIn = counters();
+    private final LongAdder[] bytesOut = counters();
+    private Supplier<? extends Collection<LinkStats>> links = Collections::emptyList;
+    private volatile NetworkLoop network;//null until the server channel is open
+    private ScheduledExecutorService dump;
+    private ObjectName name;
+
+    private static LongAdder[] counters() {
+        LongAdder[] counters = new LongAdder[MessageType.values().length];
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = new LongAdder();
+        }
+        return counters;
+    }
+
+    public void tick(long startedLateNanos, long tookNanos) {
+        tickJitter.record(startedLateNanos);
+        tickTime.record(tookNanos);
+    }
+
+    public void received(MessageType type, int bytes) {
+        datagramsIn[type.number].increment();
+        bytesIn[type.number].add(bytes);
+    }
+
+    public void sent(MessageType type, int bytes) {
+        datagramsOut[type.number].increment();
+        bytesOut[type.number].add(bytes);
+    }
+
+    //the links of the clients connected when the metrics are read
+    public void setLinks(Supplier<? extends Collection<LinkStats>> links) {
+        this.links = links;
+    }
+
+    //the loop whose buffer pool and dropped datagrams are reported
+    public void setNetwork(NetworkLoop network) {
+        this.network = network;
+    }
+
+    public Histogram getTickTime() {
+        return tickTime;
+    }
+
+    public Histogram getTickJitter() {
+        return tickJitter;
+    }
+
+    public synchronized void start(long periodSeconds) {
+        if (name == null) {
+            try {
+                MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+                ObjectName candidate = new ObjectName(NAME);
+                if (!server.isRegistered(candidate)) {
+                    server.registerMBean(this, candidate);
+                    name = candidate;
+                }
+            } catch (JMException exception) {
+                LOGGER.error("Cannot register metrics: {}", exception.getMessage());
+            }
+        }
+        if (dump == null && periodSeconds > 0) {
+            dump = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "metrics-dump");
+                thread.setDaemon(true);
+                return thread;
+            });
+            dump.scheduleAtFixedRate(new Runnable() {
+                @Override
+                public void run() {
+                    LOGGER.info(summary());
+                }
+            }, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    public synchronized void stop() {
+        if (dump != null) {
+            dump.shutdownNow();
+            dump = null;
+        }
+        if (name != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+            } catch (JMException exception) {
+                LOGGER.error("Cannot unregister metrics: {}", exception.getMessage());
+            }
+            name = null;
+        }
+    }
+
+    public boolean isRegistered() {
+        return name != null;
+    }
+
+    public String summary() {
+        return String.format("ticks %d, tick p50 %dus p99 %dus max %dus, jitter p99 %dus max %dus, "
+                        + "in %d datagrams %d bytes, out %d datagrams %d bytes, dropped %d, pool hits %d misses %d, "
+                        + "sessions %d, rtt mean %.1fms max %.1fms, loss %.1f%%",
+                getTicks(), getTickP50Micros(), getTickP99Micros(), getTickMaxMicros(), getJitterP99Micros(),
+                getJitterMaxMicros(), sum(datagramsIn), sum(bytesIn), sum(datagramsOut), sum(bytesOut), getSendDropped(),
+                getPoolHits(), getPoolMisses(), getSessions(),
+                getMeanRttMillis(), getMaxRttMillis(), getMeanLoss() * 100);
+    }
+
+    private static long sum(LongAdder[] counters) {
+        long total = 0;
+        for (LongAdder counter : counters) {
+            total += counter.sum();
+        }
+        return total;
+    }
+
+    private static Map<String, Long> byType(LongAdder[] counters) {
+        Map<String, Long> map = new LinkedHashMap<>();
+        for (MessageType type : MessageType.values()) {
+            map.put(type.name(), counters[type.number].sum());
+        }
+        return map;
+    }
+
+    @Override
+    public long getTicks() {
+        return tickTime.getCount();
+    }
+
+    @Override
+    public double getTickMeanMicros() {
+        return tickTime.getMean() / 1000;
+    }
+
+    @Override
+    public long getTickP50Micros() {
+        return tickTime.getPercentile(50) / 1000;
+    }
+
+    @Override
+    public long getTickP99Micros() {
+        return tickTime.getPercentile(99) / 1000;
+    }
+
+    @Override
+    public long getTickMaxMicros() {
+        return tickTime.getMax() / 1000;
+    }
+
+    @Override
+    public long getJitterP50Micros() {
+        return tickJitter.getPercentile(50) / 1000;
+    }
+
+    @Override
+    public long getJitterP99Micros() {
+        return tickJitter.getPercentile(99) / 1000;
+    }
+
+    @Override
+    public long getJitterMaxMicros() {
+        return tickJitter.getMax() / 1000;
+    }
+
+    @Override
+    public Map<String, Long> getDatagramsIn() {
+        return byType(datagramsIn);
+    }
+
+    @Override
+    public Map<String, Long> getDatagramsOut() {
+        return byType(datagramsOut);
+    }
+
+    @Override
+    public Map<String, Long> getBytesIn() {
+        return byType(bytesIn);
+    }
+
+    @Override
+    public Map<String, Long> getBytesOut() {
+        return byType(bytesOut);
+    }
+
+    @Override
+    public int getSessions() {
+        return links.get().size();
+    }
+
+    @Override
+    public double getMeanRttMillis() {
+        long total = 0;
+        int measured = 0;
+        for (LinkStats link : links.get()) {
+            if (link.getRttNanos() >= 0) {
+                total += link.getRttNanos();
+                measured++;
+            }
+        }
+        return measured == 0 ? 0 : total / 1e6 / measured;
+    }
+
+    @Override
+    public double getMaxRttMillis() {
+        long max = 0;
+        for (LinkStats link : links.get()) {
+            max = Math.max(max, link.getRttNanos());
+        }
+        return max / 1e6;
+    }
+
+    @Override
+    public double getMeanLoss() {
+        double total = 0;
+        int measured = 0;
+        for (LinkStats link : links.get()) {
+            if (link.getDelivered() > 0) {
+                total += link.getLoss();
+                measured++;
+            }
+        }
+        return measured == 0 ? 0 : total / measured;
+    }
+
+    @Override
+    public long getPoolHits() {
+        NetworkLoop network = this.network;
+        return network == null ? 0 : network.getPool().getHits();
+    }
+
+    @Override
+    public long getPoolMisses() {
+        NetworkLoop network = this.network;
+        return network == null ? 0 : network.getPool().getMisses();
+    }
+
+    @Override
+    public long getPoolDropped() {
+        NetworkLoop network = this.network;
+        return network == null ? 0 : network.getPool().getDropped();
+    }
+
+    @Override
+    public long getSendDropped() {
+        NetworkLoop network = this.network;
+        return network == null ? 0 : network.getDropped();
+    }
+
+    @Override
+    public int getTraceSampling() {
+        return Trace.getSampling();
+    }
+
+    @Override
+    public void setTraceSampling(int every) {
+        Trace.setSampling(every);
+    }
+
+    @Override
+    public String dumpTrace() {
+        return Trace.dump();
+    }
+}
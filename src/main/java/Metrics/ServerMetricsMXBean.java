@@ -0,0 +1,52 @@
+package Metrics;
+
+import java.util.Map;
+
+//what the server reports over JMX, times in microseconds and milliseconds, counts since the server started
+public interface ServerMetricsMXBean {
+    long getTicks();
+
+    double getTickMeanMicros();
+
+    long getTickP50Micros();
+
+    long getTickP99Micros();
+
+    long getTickMaxMicros();
+
+    long getJitterP50Micros();
+
+    long getJitterP99Micros();
+
+    long getJitterMaxMicros();
+
+    Map<String, Long> getDatagramsIn();
+
+    Map<String, Long> getDatagramsOut();
+
+    Map<String, Long> getBytesIn();
+
+    Map<String, Long> getBytesOut();
+
+    int getSessions();
+
+    double getMeanRttMillis();
+
+    double getMaxRttMillis();
+
+    double getMeanLoss();
+
+    long getPoolHits();
+
+    long getPoolMisses();
+
+    long getPoolDropped();
+
+    long getSendDropped();
+
+    int getTraceSampling();
+
+    void setTraceSampling(int every);//1 traces every event, 0 turns the trace off
+
+    String dumpTrace();
+}
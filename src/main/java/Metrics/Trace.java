@@ -0,0 +1,84 @@
+package Metrics;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+//the most recent per-tick and per-packet events of the whole process in a fixed ring, for looking at what led up
+//to a problem without logging every packet: recording writes a few numbers into preallocated arrays and allocates
+//nothing, it is off unless started with -Dtrace=N, which keeps one event in N, and the ring is dumped on demand
+public final class Trace {
+    public enum Kind {
+        TICK,//room id or -1 for a local game, microseconds the tick took
+        PACKET_IN,//message type number, bytes
+        PACKET_OUT,//message type number, bytes
+        TURN,//direction ordinal, input sequence
+        KEY//direction ordinal, 0
+    }
+
+    private static final Kind[] KINDS = Kind.values();
+    private static final int CAPACITY = 4096;//events kept, a power of two
+    private static final AtomicLong cursor = new AtomicLong();
+    private static final AtomicLongArray stamps = new AtomicLongArray(CAPACITY);//sequence + 1 of the event in the slot, 0 while empty
+    private static final long[] times = new long[CAPACITY];
+    private static final int[] kinds = new int[CAPACITY];
+    private static final int[] firsts = new int[CAPACITY];
+    private static final int[] seconds = new int[CAPACITY];
+    private static volatile int sampling = Integer.getInteger("trace", 0);//keep one event in this many, 0 is off
+
+    private Trace() {
+    }
+
+    public static boolean isEnabled() {
+        return sampling > 0;
+    }
+
+    public static int getSampling() {
+        return sampling;
+    }
+
+    public static void setSampling(int every) {
+        sampling = Math.max(0, every);
+    }
+
+    public static void event(Kind kind, int first, int second) {
+        int every = sampling;
+        if (every <= 0 || (every > 1 && ThreadLocalRandom.current().nextInt(every) != 0)) {
+            return;
+        }
+        long sequence = cursor.getAndIncrement();
+        int slot = (int) sequence & (CAPACITY - 1);
+        stamps.set(slot, 0);//a dump running meanwhile skips the slot instead of mixing two events
+        times[slot] = System.nanoTime();
+        kinds[slot] = kind.ordinal();
+        firsts[slot] = first;
+        seconds[slot] = second;
+        stamps.lazySet(slot, sequence + 1);
+    }
+
+    //the events in the ring, oldest first, one per line as nanos kind first second
+    public static String dump() {
+        StringBuilder builder = new StringBuilder();
+        long end = cursor.get();
+        for (long sequence = Math.max(0, end - CAPACITY); sequence < end; sequence++) {
+            int slot = (int) sequence & (CAPACITY - 1);
+            long stamp = stamps.get(slot);
+            long time = times[slot];
+            int kind = kinds[slot];
+            int first = firsts[slot];
+            int second = seconds[slot];
+            if (stamp != sequence + 1 || stamps.get(slot) != stamp) {
+                continue;//not written yet, or overwritten while it was read
+            }
+            builder.append(time).append(' ').append(KINDS[kind]).append(' ')
+                    .append(first).append(' ').append(second).append('\n');
+        }
+        return builder.toString();
+    }
+
+    public static void clear() {
+        for (int i = 0; i < CAPACITY; i++) {
+            stamps.set(i, 0);
+        }
+    }
+}
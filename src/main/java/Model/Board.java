@@ -0,0 +1,114 @@
+package Model;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+@Getter
+public class Board {
+    private final int columns;//number of horizontal cells
+    private final int rows;//number of vertical cells
+    //one bit per cell, set when a snake body covers the cell, snakes on one board may be moved from different
+    //tick threads, so the bits are written under the lock of the board and read without it
+    private final AtomicLongArray occupied;
+    //every free cell once, in no order, with the place of each cell in that list, so a random free cell
+    //is one lookup and a cell changing state is one swap with the last entry, however full the board is
+    @Getter(AccessLevel.NONE)
+    private final int[] free;
+    @Getter(AccessLevel.NONE)
+    private final int[] position;//index of the cell in free, -1 while it is occupied
+    private int freeCount;
+
+    public Board(int columns, int rows){
+        this.columns = columns;
+        this.rows = rows;
+        occupied = new AtomicLongArray((columns * rows + 63) >>> 6);
+        free = new int[columns * rows];
+        position = new int[columns * rows];
+        for (int cell = 0; cell < free.length; cell++) {
+            free[cell] = cell;
+            position[cell] = cell;
+        }
+        freeCount = free.length;
+    }
+
+    public boolean isInside(int x, int y){
+        return x >= 0 && x < columns && y >= 0 && y < rows;
+    }
+
+    public boolean isOccupied(int x, int y){
+        if (!isInside(x, y)) {
+            return false;
+        }
+        int cell = x * rows + y;
+        return (occupied.get(cell >>> 6) & (1L << cell)) != 0;
+    }
+
+    public void occupy(int x, int y){
+        //cells outside the board are ignored, the border check in the model ends the game before they are entered
+        if (isInside(x, y)) {
+            int cell = x * rows + y;
+            //the bit and the free list change under one lock, so a cell is in the list exactly while its bit is clear
+            synchronized (this) {
+                long word = occupied.get(cell >>> 6);
+                if ((word & (1L << cell)) == 0) {
+                    occupied.set(cell >>> 6, word | (1L << cell));
+                    removeFree(cell);
+                }
+            }
+        }
+    }
+
+    public void vacate(int x, int y){
+        if (isInside(x, y)) {
+            int cell = x * rows + y;
+            synchronized (this) {
+                long word = occupied.get(cell >>> 6);
+                if ((word & (1L << cell)) != 0) {
+                    occupied.set(cell >>> 6, word & ~(1L << cell));
+                    addFree(cell);
+                }
+            }
+        }
+    }
+
+    public synchronized int getFreeCount(){
+        return freeCount;
+    }
+
+    //a free cell picked uniformly, packed like a body cell, -1 when the board is full
+    public synchronized int randomFreeCell(Random random){
+        if (freeCount == 0) {
+            return -1;
+        }
+        int cell = free[random.nextInt(freeCount)];
+        return GameModel.pack(cell / rows, cell % rows);
+    }
+
+    //the i-th free cell in the list, for callers that need to step past cells they cannot use, -1 when the board is full
+    public synchronized int freeCell(int index){
+        if (freeCount == 0) {
+            return -1;
+        }
+        int cell = free[index % freeCount];
+        return GameModel.pack(cell / rows, cell % rows);
+    }
+
+    //only the cell whose bit changed touches the list, called with the lock held
+    private void removeFree(int cell){
+        int index = position[cell];
+        int last = free[freeCount - 1];
+        free[index] = last;
+        position[last] = index;
+        position[cell] = -1;
+        freeCount = freeCount - 1;
+    }
+
+    private void addFree(int cell){
+        free[freeCount] = cell;
+        position[cell] = freeCount;
+        freeCount = freeCount + 1;
+    }
+}
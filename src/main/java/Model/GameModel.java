@@ -1,17 +1,31 @@
 package Model;
 
 import Controller.Level;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 
-import java.util.ArrayList;
 import java.util.Random;
 
 @Getter
 @Setter
 public class GameModel {
-    private ArrayList<Integer> snakeX = new ArrayList<>();//X coordinates of each rectangle that makes up of the snake
-    private ArrayList<Integer> snakeY = new ArrayList<>();//Y coordinates of each rectangle that makes up of the snake
+    private static final int INITIAL_CAPACITY = 16;//must be a power of two so indices can wrap with a mask
+    private static final int INPUT_CAPACITY = 16;//turns a player can queue between two moves
+
+    //the snake body is a circular deque of packed cells, the head sits at index head and the body follows it,
+    //so a move only writes the new head and drops the tail instead of shifting every element
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private int[] body = new int[INITIAL_CAPACITY];
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private int head;//index of the head in body
+    @Setter(AccessLevel.NONE)
+    private int growth;//moves left that keep the tail in place after eating
+    private Board board;//occupancy of the board the snake moves on, shared by every snake on it
+    private boolean hit;//whether the last move ran the head into a snake body
+    private int inputSequence;//number of the last turn from the player that has been applied
     private Direction direction;//the direction for the snake to make next move
     private Direction lastDirection;//the direction when the snake last made a move
     private int length;//length of the snake
@@ -20,6 +34,9 @@ public class GameModel {
     private String player;//player's name
     private int score;//score gained in the game
     private Random ran = new Random();
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final InputQueue inputs = new InputQueue(INPUT_CAPACITY);//turns not yet seen by the tick
 
     public GameModel(){
         direction = Direction.RIGHT;//define the initial snake direction as right
@@ -30,64 +47,128 @@ public class GameModel {
         player = "Bot";
     }
 
-    public void initialiseSnake(int len, int headX, int headY, int grid){
+    public void initialiseSnake(int len, int headX, int headY){
+        removeFromBoard();
+        inputs.clear();//turns of an earlier game do not carry over
+        //the old body is dropped before the buffer grows, so nothing needs to be copied
+        length = 0;
+        head = 0;
+        ensureCapacity(len);
         length = len;
-        snakeX.add(0, headX*grid);
-        snakeY.add(0, headY*grid);
-        for(int i=1; i<length; i++){
-            snakeX.add(i, (headX-i)*grid);
+        growth = 0;
+        hit = false;
+        for(int i=0; i<length; i++){
+            body[i] = pack(headX-i, headY);
+            if (board != null) {
+                board.occupy(headX-i, headY);
+            }
         }
-        for(int i=1; i<length; i++){
-            snakeY.add(i, headY*grid);
+    }//set snake body based on snake head, the body lies to the left of the head
+
+    public void resetBody(int[] cells, int count, int pendingGrowth){
+        //replace the whole body, the tail cell is repeated for every move that still keeps the tail
+        removeFromBoard();
+        length = 0;
+        head = 0;
+        ensureCapacity(count + pendingGrowth);
+        length = count + pendingGrowth;
+        growth = pendingGrowth;
+        hit = false;
+        for (int i = 0; i < length; i++) {
+            body[i] = cells[Math.min(i, count - 1)];
+            if (board != null) {
+                board.occupy(cellX(body[i]), cellY(body[i]));
+            }
         }
-    }//set snake body based on snake head
+    }
+
+    public boolean queueTurn(Direction turn, int sequence){
+        //any thread may queue a turn, the snake only takes it up when the tick drains the queue
+        return inputs.offer(turn, sequence);
+    }
 
-    public void updateSnake(int grid, int width, int height){
-        //move the body
-        for(int i = length-1; i>0; i--){
-            snakeX.set(i, snakeX.get(i-1));
-            snakeY.set(i, snakeY.get(i-1));
+    public void applyInputs(){
+        //called by the thread moving the snake before the move: turns along the axis of the last move are
+        //either repeats or reversals and are dropped, the first real turn is taken and the rest wait for
+        //the next moves, so quick presses are never merged into a reversal
+        long entry;
+        while ((entry = inputs.poll()) != InputQueue.EMPTY) {
+            Direction turn = InputQueue.direction(entry);
+            inputSequence = InputQueue.sequence(entry);
+            if (turn.ordinal() / 2 != lastDirection.ordinal() / 2) {
+                direction = turn;
+                return;
+            }
+        }
+    }
+
+    public void removeFromBoard(){
+        //clear every cell of the body on the board, the body itself is kept
+        if (board != null) {
+            for (int i = 0; i < length; i++) {
+                board.vacate(getX(i), getY(i));
+            }
         }
-        //move the head
-        moveHead(grid, width, height);
     }
 
-    public void moveHead(int grid, int width, int height) {
+    public void copyFrom(GameModel other){
+        //take over the state of another snake, the board is left alone as a copy is not on it
+        length = 0;
+        head = 0;
+        ensureCapacity(other.length);
+        for (int i = 0; i < other.length; i++) {
+            body[i] = other.body[(other.head + i) & (other.body.length - 1)];
+        }
+        length = other.length;
+        growth = other.growth;
+        hit = other.hit;
+        direction = other.direction;
+        lastDirection = other.lastDirection;
+        isStart = other.isStart;
+        score = other.score;
+    }
+
+    public void updateSnake(int columns, int rows){
+        //move the head, the body follows it for free as the old head becomes the first body cell
+        moveHead(columns, rows);
+    }
+
+    public void moveHead(int columns, int rows) {
         //based on the direction of the snake, check if the next move will make the snake out of the game border
         //if the next move makes the snake still within the border, then move the snake
         //else the game is over as the snake is out of the game border
 
         //create local variable for gameModel.getDirection()
         //synchronisation issue
-        int snakeHeadX = snakeX.get(0);
-        int snakeHeadY = snakeY.get(0);
+        int snakeHeadX = getHeadX();
+        int snakeHeadY = getHeadY();
         if(direction.equals(Direction.RIGHT)){
-            if(snakeHeadX + grid <= width-grid){
-                snakeX.set(0, snakeHeadX + grid);
+            if(snakeHeadX + 1 <= columns-1){
+                moveHeadTo(snakeHeadX + 1, snakeHeadY);
             }else{
                 setIsStart(false);
             }
         }
 
         if(direction.equals(Direction.LEFT)){
-            if(snakeHeadX - grid >= 0){
-                snakeX.set(0, snakeHeadX - grid);
+            if(snakeHeadX - 1 >= 0){
+                moveHeadTo(snakeHeadX - 1, snakeHeadY);
             }else{
                 setIsStart(false);
             }
         }
 
         if(direction.equals(Direction.UP)){
-            if(snakeHeadY - grid >= 0){
-                snakeY.set(0, snakeHeadY - grid);
+            if(snakeHeadY - 1 >= 0){
+                moveHeadTo(snakeHeadX, snakeHeadY - 1);
             }else{
                 setIsStart(false);
             }
         }
 
         if(direction.equals(Direction.DOWN)){
-            if(snakeHeadY + grid <= height-grid){
-                snakeY.set(0, snakeHeadY + grid);
+            if(snakeHeadY + 1 <= rows-1){
+                moveHeadTo(snakeHeadX, snakeHeadY + 1);
             }else{
                 setIsStart(false);
             }
@@ -96,13 +177,114 @@ public class GameModel {
         setLastDirection(direction);
     }
 
+    public int nextHead(int columns, int rows) {
+        //the cell the head moves to next in the current direction, -1 when that is outside the border
+        int x = getHeadX();
+        int y = getHeadY();
+        if (direction.equals(Direction.RIGHT)) {
+            x = x + 1;
+        } else if (direction.equals(Direction.LEFT)) {
+            x = x - 1;
+        } else if (direction.equals(Direction.UP)) {
+            y = y - 1;
+        } else {
+            y = y + 1;
+        }
+        if (x < 0 || x >= columns || y < 0 || y >= rows) {
+            return -1;
+        }
+        return pack(x, y);
+    }
+
+    public void moveHeadTo(int x, int y) {
+        releaseTail();
+        pushHead(x, y);
+    }
+
+    //a move in two halves, so snakes sharing a board can all leave their tails before any of them enters a cell
+    public void releaseTail() {
+        if (growth > 0) {
+            growth = growth - 1;
+        } else if (board != null) {
+            board.vacate(getTailX(), getTailY());
+        }
+    }
+
+    public void pushHead(int x, int y) {
+        //the tail has left its cell already, so any body still on the new cell is a hit
+        if (board != null) {
+            hit = board.isOccupied(x, y);
+            board.occupy(x, y);
+        }
+        //the slot before the head is either free or holds the tail, which is dropped by this move
+        head = (head - 1) & (body.length - 1);
+        body[head] = pack(x, y);
+    }
+
     public void increaseLength(){
+        ensureCapacity(length + 1);
+        //the new last slot repeats the tail, so the tail stays in place on the next move
+        if (length > 0) {
+            body[(head + length) & (body.length - 1)] = body[(head + length - 1) & (body.length - 1)];
+        }
         length = length +1;
-        snakeX.add(0);
-        snakeY.add(0);
+        growth = growth +1;
         score = score +1;
     }
 
+    private void ensureCapacity(int required) {
+        if (required <= body.length) {
+            return;
+        }
+        int capacity = body.length;
+        while (capacity < required) {
+            capacity = capacity << 1;
+        }
+        //doubling keeps growth amortised constant per eaten food, the body is unrolled so the head starts at 0
+        int[] grown = new int[capacity];
+        int firstRun = Math.min(length, body.length - head);
+        System.arraycopy(body, head, grown, 0, firstRun);
+        System.arraycopy(body, 0, grown, firstRun, length - firstRun);
+        body = grown;
+        head = 0;
+    }
+
+    public int getX(int index){
+        return cellX(body[(head + index) & (body.length - 1)]);
+    }//X cell of the index-th rectangle of the snake, 0 being the head
+
+    public int getY(int index){
+        return cellY(body[(head + index) & (body.length - 1)]);
+    }//Y cell of the index-th rectangle of the snake, 0 being the head
+
+    public int getHeadX(){
+        return getX(0);
+    }
+
+    public int getHeadY(){
+        return getY(0);
+    }
+
+    public int getTailX(){
+        return getX(length - 1);
+    }
+
+    public int getTailY(){
+        return getY(length - 1);
+    }
+
+    public static int pack(int x, int y){
+        return (x << 16) | (y & 0xFFFF);
+    }//pack a cell into one int, 16 signed bits for each coordinate
+
+    public static int cellX(int cell){
+        return cell >> 16;
+    }
+
+    public static int cellY(int cell){
+        return (short) cell;
+    }
+
     public void setSnakeSpeed(int selection) {
         switch (selection) {
             case 1:
@@ -0,0 +1,78 @@
+package Model;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+//turns of one snake, written by the network or keyboard threads and read only by the thread moving the snake,
+//a bounded ring without locks: every slot carries the position it may be written or read at next, a producer
+//claims a position with a compare and set on the tail and publishes the turn by advancing the slot
+public class InputQueue {
+    public static final long EMPTY = -1;
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private final int mask;
+    private final long[] entries;//sequence << 2 | direction ordinal
+    private final AtomicLongArray positions;
+    private final AtomicLong tail = new AtomicLong();
+    private long head;//only the consumer moves it
+
+    public InputQueue(int capacity) {
+        //the capacity must be a power of two so positions can wrap with a mask
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        mask = capacity - 1;
+        entries = new long[capacity];
+        positions = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            positions.set(i, i);
+        }
+    }
+
+    //returns false when the queue is full, the turn is dropped then
+    public boolean offer(Direction direction, int sequence) {
+        long entry = ((sequence & 0xFFFFFFFFL) << 2) | direction.ordinal();//never negative, so never EMPTY
+        while (true) {
+            long position = tail.get();
+            int slot = (int) position & mask;
+            long difference = positions.get(slot) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    entries[slot] = entry;
+                    positions.lazySet(slot, position + 1);//publishes the entry to the consumer
+                    return true;
+                }
+            } else if (difference < 0) {
+                return false;//the consumer has not read this slot yet
+            }
+        }
+    }
+
+    //returns the oldest entry or EMPTY, only the thread moving the snake may call it
+    public long poll() {
+        int slot = (int) head & mask;
+        if (positions.get(slot) != head + 1) {
+            return EMPTY;
+        }
+        long entry = entries[slot];
+        positions.lazySet(slot, head + mask + 1);//the slot is free for the producers of the next lap
+        head++;
+        return entry;
+    }
+
+    public boolean isEmpty() {
+        return positions.get((int) head & mask) != head + 1;
+    }
+
+    public void clear() {
+        while (poll() != EMPTY) {
+        }
+    }
+
+    public static Direction direction(long entry) {
+        return DIRECTIONS[(int) (entry & 3)];
+    }
+
+    public static int sequence(long entry) {
+        return (int) (entry >>> 2);
+    }
+}
@@ -0,0 +1,10 @@
+package View;
+
+import javafx.scene.Node;
+
+//draws the cells of one board, the game view marks cells and the renderer paints them on the FX thread
+public interface BoardRenderer {
+    Node getNode();
+
+    void paint(int x, int y, byte state);
+}
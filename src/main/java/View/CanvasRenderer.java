@@ -0,0 +1,51 @@
+package View;
+
+import javafx.scene.Node;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+
+import java.util.Arrays;
+
+//the whole board is one Canvas node, a cell is only drawn again when its state changes,
+//so large boards and several boards side by side cost no scene graph nodes per cell
+public class CanvasRenderer implements BoardRenderer {
+    private final Canvas canvas;
+    private final GraphicsContext graphics;
+    private final int grid;
+    private final int rows;
+    private final byte[] states;//what each cell currently shows
+
+    public CanvasRenderer(int grid, int upBorder, int columns, int rows) {
+        this.grid = grid;
+        this.rows = rows;
+        this.states = new byte[columns * rows];
+        canvas = new Canvas(columns * grid, rows * grid);
+        canvas.setLayoutY(upBorder);
+        graphics = canvas.getGraphicsContext2D();
+        //an empty board is black, like a Rectangle without a fill
+        graphics.setFill(Color.BLACK);
+        graphics.fillRect(0, 0, columns * grid, rows * grid);
+        Arrays.fill(states, DirtyCells.EMPTY);
+    }
+
+    @Override
+    public Node getNode() {
+        return canvas;
+    }
+
+    @Override
+    public void paint(int x, int y, byte state) {
+        int cell = x * rows + y;
+        if (states[cell] == state) {
+            return;
+        }
+        states[cell] = state;
+        graphics.setFill(RectangleRenderer.COLOURS[state]);
+        graphics.fillRect(x * grid, y * grid, grid, grid);
+    }
+
+    public byte getState(int x, int y) {
+        return states[x * rows + y];
+    }
+}
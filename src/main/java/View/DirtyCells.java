@@ -0,0 +1,46 @@
+package View;
+
+//cells changed by the game threads since the last frame, with only the latest state of each cell kept,
+//so the FX thread can apply a whole tick, or several, in one batch
+public class DirtyCells {
+    public static final byte CLEAN = 0;
+    public static final byte EMPTY = 1;
+    public static final byte HEAD = 2;
+    public static final byte BODY = 3;
+    public static final byte FOOD = 4;
+    private final int rows;
+    private final byte[] pending;//state waiting to be painted for every cell, CLEAN when there is none
+    private final int[] dirty;//cells with a pending state, each listed once
+    private int count;
+
+    public DirtyCells(int columns, int rows) {
+        this.rows = rows;
+        this.pending = new byte[columns * rows];
+        this.dirty = new int[columns * rows];
+    }
+
+    public synchronized void mark(int x, int y, byte state) {
+        int cell = x * rows + y;
+        if (pending[cell] == CLEAN) {
+            dirty[count] = cell;
+            count++;
+        }
+        pending[cell] = state;
+    }
+
+    //copies the pending cells into the given arrays and forgets them, returns how many there were
+    public synchronized int drain(int[] cells, byte[] states) {
+        int drained = count;
+        for (int i = 0; i < drained; i++) {
+            cells[i] = dirty[i];
+            states[i] = pending[dirty[i]];
+            pending[dirty[i]] = CLEAN;
+        }
+        count = 0;
+        return drained;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+}
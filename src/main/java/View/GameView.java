@@ -1,5 +1,7 @@
 package View;
 
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
 import javafx.collections.ObservableList;
 import javafx.geometry.HPos;
 import javafx.geometry.Pos;
@@ -9,7 +11,6 @@ import javafx.scene.control.Button;
 import javafx.scene.control.ChoiceBox;
 import javafx.scene.control.TextField;
 import javafx.scene.layout.GridPane;
-import javafx.scene.paint.Color;
 import javafx.scene.shape.Rectangle;
 import javafx.scene.text.*;
 import lombok.Getter;
@@ -38,7 +39,17 @@ public class GameView {
     private Text bestScoreText;
     private Text bestPlayerText;
 
-    public static Rectangle[][] whole;
+    private String boardStyle = "Rectangle";//Rectangle or Canvas
+    private AnimationTimer renderTimer;
+    private volatile int score = -1;//score to show from the next pulse on, set by the game threads
+    private int shownScore = -1;//score the text shows, only touched on the FX thread
+
+    private Rectangle[][] whole;//the cells of the board, null when it is drawn on a canvas
+    //the game threads only mark cells of this view, the FX thread paints them once per pulse
+    private BoardRenderer boardRenderer;
+    private DirtyCells dirtyCells;
+    private int[] drainedCells;
+    private byte[] drainedStates;
 
     public GameView(Integer panelHeight, Integer panelWidth){
         createFirstScene(panelHeight, panelWidth);
@@ -123,23 +134,77 @@ public class GameView {
         GridPane.setColumnSpan(introText,2);
     }
 
-    public static void paintTail(int x, int y){
-        whole[x][y].setFill(Color.BLACK);
+    public void paintTail(int x, int y){
+        dirtyCells.mark(x, y, DirtyCells.EMPTY);
+    }
+
+    public void paintHead(int x, int y){
+        dirtyCells.mark(x, y, DirtyCells.HEAD);
+    }
+
+    public void paintBody(int x, int y){
+        dirtyCells.mark(x, y, DirtyCells.BODY);
+    }
+
+    public void paintFood(int x, int y) {
+        dirtyCells.mark(x, y, DirtyCells.FOOD);
+    }
+
+    public void flush() {
+        //apply every cell painted since the last frame, must run on the FX thread
+        int count = dirtyCells.drain(drainedCells, drainedStates);
+        for (int i = 0; i < count; i++) {
+            int cell = drainedCells[i];
+            boardRenderer.paint(cell / dirtyCells.getRows(), cell % dirtyCells.getRows(), drainedStates[i]);
+        }
+    }
+
+    //the texts are nodes of the scene as well, the game threads leave the latest score for the next pulse
+    public void showScore(int score) {
+        this.score = score;
+    }
+
+    public void flushTexts() {
+        //must run on the FX thread
+        int latest = score;
+        if (latest != shownScore) {
+            shownScore = latest;
+            currentScoreText.setText("Current score: " + latest);
+        }
     }
 
-    public static void paintHead(int x, int y){
-        whole[x][y].setFill(Color.YELLOW);
+    //the record changes once a game at most, so it is handed to the FX thread as it is
+    public void showBest(String player, int score) {
+        Platform.runLater(new Runnable() {
+            @Override
+            public void run() {
+                bestPlayerText.setText("Best Player: " + player);
+                bestScoreText.setText("Best Score: " + score);
+            }
+        });
     }
 
-    public static void paintBody(int x, int y){
-        whole[x][y].setFill(Color.BLUE);
+    public void startRendering() {
+        //one timer on the FX thread paints the cells marked during the last pulse
+        if (renderTimer == null) {
+            renderTimer = new AnimationTimer() {
+                @Override
+                public void handle(long now) {
+                    flush();
+                    flushTexts();
+                }
+            };
+        }
+        renderTimer.start();
     }
 
-    public static void paintFood(int x, int y) {
-        whole[x][y].setFill(Color.RED);
+    public void stopRendering() {
+        if (renderTimer != null) {
+            renderTimer.stop();
+        }
     }
 
-    public static void paintSnake(int length, int snakeX, int snakeY) {
+    public void paintSnake(int length, int snakeX, int snakeY) {
         paintHead(snakeX, snakeY);
         for (int i = length - 1; i > 0; i--) {
             paintBody(snakeX - i, snakeY);
@@ -150,16 +215,24 @@ public class GameView {
         //second scene
         Group root = new Group();
         ObservableList list = root.getChildren();
-        //draw num*num squares with the length of grid, which forms the game area
-        whole = new Rectangle[num][num];
-        for(int i = 0; i<num ; i++){
-            for(int j =0; j<num; j++){
-                whole[i][j] = new Rectangle(i*grid,gameUpBorder+j*grid, grid, grid);
-                list.add(whole[i][j]);
-            }
+        //draw num*num squares with the length of grid, which forms the game area,
+        //either as one Rectangle per cell or on a single canvas
+        if (boardStyle.equals("Canvas")) {
+            boardRenderer = new CanvasRenderer(grid, gameUpBorder, num, num);
+            whole = null;
+        } else {
+            RectangleRenderer rectangles = new RectangleRenderer(grid, gameUpBorder, num, num);
+            boardRenderer = rectangles;
+            whole = rectangles.getCells();
         }
+        list.add(boardRenderer.getNode());
+        dirtyCells = new DirtyCells(num, num);
+        drainedCells = new int[num * num];
+        drainedStates = new byte[num * num];
         //text to show current score
         currentScoreText = new Text(grid*2, gameUpBorder/2, "Current Score: 0");
+        score = -1;
+        shownScore = -1;
         currentScoreText.setFont(Font.font("Courier", FontWeight.BOLD, FontPosture.REGULAR, panelWidth/35));
         //show best score and best player
         bestScoreText = new Text(panelWidth/2, gameUpBorder*0.25, "Best Score: N/A");
@@ -0,0 +1,32 @@
+package View;
+
+import Engine.GameListener;
+import Model.GameModel;
+
+//paints a running game on the view, only the game that is shown gets one
+public class GameViewListener implements GameListener {
+    private final GameView view;
+
+    public GameViewListener(GameView view) {
+        this.view = view;
+    }
+
+    @Override
+    public void foodPlaced(int x, int y) {
+        view.paintFood(x, y);
+    }
+
+    @Override
+    public void moved(GameModel model, int tailX, int tailY, boolean grew) {
+        if (!grew) {
+            view.paintTail(tailX, tailY);//paint the old tail to black
+        }
+        view.paintHead(model.getHeadX(), model.getHeadY());//paint the new head
+        view.paintBody(model.getX(1), model.getY(1));//paint the old head to the colour of body
+    }
+
+    @Override
+    public void scored(GameModel model) {
+        view.showScore(model.getScore());
+    }
+}
@@ -0,0 +1,37 @@
+package View;
+
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Rectangle;
+
+//one Rectangle node per cell, simple but the scene graph grows with the square of the board size
+public class RectangleRenderer implements BoardRenderer {
+    static final Color[] COLOURS = {null, Color.BLACK, Color.YELLOW, Color.BLUE, Color.RED};
+    private final Group group = new Group();
+    private final Rectangle[][] cells;
+
+    public RectangleRenderer(int grid, int upBorder, int columns, int rows) {
+        cells = new Rectangle[columns][rows];
+        for (int i = 0; i < columns; i++) {
+            for (int j = 0; j < rows; j++) {
+                cells[i][j] = new Rectangle(i * grid, upBorder + j * grid, grid, grid);
+                group.getChildren().add(cells[i][j]);
+            }
+        }
+    }
+
+    @Override
+    public Node getNode() {
+        return group;
+    }
+
+    @Override
+    public void paint(int x, int y, byte state) {
+        cells[x][y].setFill(COLOURS[state]);
+    }
+
+    public Rectangle[][] getCells() {
+        return cells;
+    }
+}
@@ -0,0 +1,109 @@
+package Controller;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+public class AsyncFileWriterTest {
+
+    private File directory;
+    private AsyncFileWriter writer;
+
+    @Before
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("writer").toFile();
+        writer = new AsyncFileWriter();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    private String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testSave() throws IOException {
+        File file = new File(directory, "record.txt");
+        writer.save(file, "Amy:3");
+        writer.flush();
+        assertEquals(read(file), "Amy:3");
+        writer.save(file, "Bob:5");
+        writer.flush();
+        assertEquals(read(file), "Bob:5");
+        //only the target is left, the temporary file was renamed over it
+        assertEquals(directory.listFiles().length, 1);
+    }
+
+    @Test
+    public void testSavesAreMerged() throws IOException {
+        File file = new File(directory, "record.txt");
+        for (int i = 0; i < 1000; i++) {
+            writer.save(file, "Amy:" + i);
+        }
+        writer.flush();
+        assertEquals(read(file), "Amy:999");
+        assertTrue(writer.getWrites() <= 1000);
+        assertTrue(writer.getWrites() >= 1);
+    }
+
+    @Test
+    public void testAppend() throws IOException {
+        File file = new File(directory, "leaderboard.txt");
+        for (int i = 0; i < 500; i++) {
+            writer.append(file, i + "\n");
+        }
+        writer.flush();
+        String[] lines = read(file).split("\n");
+        assertEquals(lines.length, 500);
+        assertEquals(lines[499], "499");
+    }
+
+    @Test
+    public void testSaveDoesNotWait() {
+        //a slow disk only holds up the writer thread
+        File file = new File(directory, "config.ini");
+        writer.save(file, () -> {
+            try {
+                Thread.sleep(300);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+            return "slow";
+        });
+        long start = System.nanoTime();
+        writer.save(new File(directory, "record.txt"), "Amy:1");
+        assertTrue(System.nanoTime() - start < 100_000_000L);
+        writer.flush();
+        assertTrue(file.exists());
+    }
+
+    @Test
+    public void testFailedSaveLeavesFile() throws IOException {
+        File file = new File(directory, "record.txt");
+        writer.save(file, "Amy:3");
+        writer.flush();
+        writer.save(new File(directory, "missing/record.txt"), "Bob:5");
+        writer.save(file, () -> {
+            throw new IllegalStateException("broken");
+        });
+        writer.flush();
+        assertEquals(read(file), "Amy:3");
+        assertEquals(directory.listFiles().length, 1);
+    }
+}
@@ -0,0 +1,72 @@
+package Controller;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.*;
+
+public class BufferPoolTest {
+
+    @Test
+    public void testReuse() {
+        BufferPool pool = new BufferPool(2, 16, false);
+        ByteBuffer first = pool.acquire();
+        assertEquals(pool.getMisses(), 1);
+        first.put((byte) 1);
+        pool.release(first);
+        ByteBuffer second = pool.acquire();
+        assertSame(second, first);
+        assertEquals(second.position(), 0);
+        assertEquals(pool.getHits(), 1);
+    }
+
+    @Test
+    public void testFullPoolDrops() {
+        BufferPool pool = new BufferPool(1, 16, true);
+        ByteBuffer first = pool.acquire();
+        ByteBuffer second = pool.acquire();
+        assertTrue(first.isDirect());
+        pool.release(first);
+        pool.release(second);
+        assertEquals(pool.getDropped(), 1);
+    }
+
+    @Test
+    public void testConcurrentUse() throws Exception {
+        //a buffer must never be handed to two threads at once
+        BufferPool pool = new BufferPool(8, 16, false);
+        //buffers compare by content, so they are tracked by identity
+        Set<ByteBuffer> inUse = Collections.newSetFromMap(new IdentityHashMap<ByteBuffer, Boolean>());
+        int threads = 4;
+        CountDownLatch done = new CountDownLatch(threads);
+        boolean[] failed = new boolean[1];
+        for (int t = 0; t < threads; t++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 10000; i++) {
+                        ByteBuffer buffer = pool.acquire();
+                        synchronized (inUse) {
+                            if (!inUse.add(buffer)) {
+                                failed[0] = true;
+                            }
+                        }
+                        synchronized (inUse) {
+                            inUse.remove(buffer);
+                        }
+                        pool.release(buffer);
+                    }
+                    done.countDown();
+                }
+            }).start();
+        }
+        done.await();
+        assertFalse(failed[0]);
+        assertEquals(pool.getHits() + pool.getMisses(), 40000);
+    }
+}
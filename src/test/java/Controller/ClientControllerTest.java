@@ -1,11 +1,15 @@
 package Controller;
 
+import Constants.GameConstants;
+import Model.Direction;
 import Model.GameModel;
 import View.GameView;
 import de.saxsys.javafx.test.JfxRunner;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.nio.ByteBuffer;
+
 import static org.junit.Assert.*;
 
 //@RunWith(JfxRunner.class)
@@ -44,4 +48,207 @@ public class ClientControllerTest {
         clientController.diffElement(packet);
         assertEquals(clientController.getModels().get(0).getLength(), 4);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testApplyStateFromServer(){
+        GameView gameView = new GameView(165, 150);
+        gameView.createSecondScene(10, 165, 15, 10);
+        clientController.setView(gameView);
+        clientController.models.add(new GameModel());
+        clientController.models.get(0).setSpeed(Integer.MAX_VALUE);
+        GameModel server = new GameModel();
+        server.initialiseSnake(3, 4, 4);
+        StateSync sync = new StateSync();
+        sync.start(server);
+
+        //nothing acknowledged yet, so the first update is a full snapshot
+        assertEquals(sync.nextType(), MessageType.SNAPSHOT);
+        clientController.diffElement(new Packet(MessageType.SNAPSHOT, sync.encode(MessageType.SNAPSHOT, server, 1, 1)));
+        GameModel client = clientController.getModels().get(0);
+        assertEquals(client.getIsStart(), true);
+        assertEquals(client.getTailX(), 2);
+        assertEquals(clientController.foodX, 1);
+        sync.acknowledge(clientController.getTick());
+
+        //the delta of tick 1 is lost, tick 2 still carries both moves against the acknowledged baseline
+        server.updateSnake(10, 10);
+        sync.record(server);
+        server.increaseLength();
+        server.setDirection(Direction.DOWN);
+        server.updateSnake(10, 10);
+        sync.record(server);
+        assertEquals(sync.nextType(), MessageType.DELTA);
+        clientController.diffElement(new Packet(MessageType.DELTA, sync.encode(MessageType.DELTA, server, 7, 2)));
+        assertEquals(clientController.getTick(), 2);
+        assertEquals(client.getLength(), 4);
+        for (int i = 0; i < server.getLength(); i++) {
+            assertEquals(client.getX(i), server.getX(i));
+            assertEquals(client.getY(i), server.getY(i));
+        }
+        assertEquals(client.getDirection(), Direction.DOWN);
+        assertEquals(client.getScore(), 1);
+        assertEquals(clientController.foodX, 7);
+        assertEquals(clientController.foodY, 2);
+    }
+
+    @Test
+    public void testSnapshotAfterLongLoss(){
+        GameView gameView = new GameView(165, 150);
+        gameView.createSecondScene(10, 165, 15, 40);
+        clientController.setView(gameView);
+        clientController.models.add(new GameModel());
+        clientController.models.get(0).setSpeed(Integer.MAX_VALUE);
+        GameModel server = new GameModel();
+        server.initialiseSnake(5, 6, 1);
+        StateSync sync = new StateSync();
+        sync.start(server);
+        clientController.diffElement(new Packet(MessageType.SNAPSHOT, sync.encode(MessageType.SNAPSHOT, server, 0, 0)));
+        sync.acknowledge(clientController.getTick());
+        server.setDirection(Direction.DOWN);
+        for (int i = 0; i < StateSync.HISTORY; i++) {
+            if (i % 4 == 0) {
+                server.increaseLength();
+            }
+            server.updateSnake(40, 40);
+            sync.record(server);
+        }
+        server.increaseLength();
+        //the baseline has left the history, so the client gets a full snapshot including the pending growth
+        assertEquals(sync.nextType(), MessageType.SNAPSHOT);
+        clientController.diffElement(new Packet(MessageType.SNAPSHOT, sync.encode(MessageType.SNAPSHOT, server, 0, 0)));
+        GameModel client = clientController.getModels().get(0);
+        assertEquals(client.getLength(), server.getLength());
+        assertEquals(client.getGrowth(), server.getGrowth());
+        for (int i = 0; i < server.getLength(); i++) {
+            assertEquals(client.getX(i), server.getX(i));
+            assertEquals(client.getY(i), server.getY(i));
+        }
+    }
+
+    @Test
+    public void testPredictionAndReconciliation(){
+        GameView gameView = new GameView(165, 150);
+        gameView.createSecondScene(10, 165, 15, 15);
+        clientController.setView(gameView);
+        clientController.setNum(15);
+        GameModel client = new GameModel();
+        //keep the background prediction out of the way, the test drives every local tick itself
+        client.setSpeed(Integer.MAX_VALUE);
+        clientController.models.add(client);
+        GameModel server = new GameModel();
+        server.initialiseSnake(3, 5, 5);
+        server.setIsStart(true);
+        StateSync sync = new StateSync();
+        sync.start(server);
+        clientController.diffElement(new Packet(MessageType.SNAPSHOT, sync.encode(MessageType.SNAPSHOT, server, 0, 0)));
+        sync.acknowledge(clientController.getTick());
+
+        //the client runs two ticks ahead and turns, the turn shows up locally straight away
+        clientController.predict();
+        clientController.predict();
+        clientController.turn(Direction.DOWN);
+        clientController.predict();
+        assertEquals(client.getHeadX(), 7);
+        assertEquals(client.getHeadY(), 6);
+
+        //the server has not seen the turn by its third tick, the client rewinds and replays the turn after it
+        for (int i = 0; i < 3; i++) {
+            server.updateSnake(15, 15);
+            sync.record(server);
+        }
+        clientController.diffElement(new Packet(MessageType.DELTA, sync.encode(MessageType.DELTA, server, 0, 0)));
+        sync.acknowledge(clientController.getTick());
+        assertEquals(client.getHeadX(), 8);
+        assertEquals(client.getHeadY(), 5);
+        assertEquals(client.getDirection(), Direction.DOWN);
+
+        //once the server applies the turn, prediction and authority agree again
+        clientController.predict();
+        server.setDirection(Direction.DOWN);
+        server.setInputSequence(1);
+        server.updateSnake(15, 15);
+        sync.record(server);
+        clientController.diffElement(new Packet(MessageType.DELTA, sync.encode(MessageType.DELTA, server, 0, 0)));
+        assertEquals(clientController.getInputCount(), 0);
+        for (int i = 0; i < server.getLength(); i++) {
+            assertEquals(client.getX(i), server.getX(i));
+            assertEquals(client.getY(i), server.getY(i));
+        }
+        //reversing into the body is refused before it is predicted or sent
+        clientController.turn(Direction.UP);
+        assertEquals(client.getDirection(), Direction.DOWN);
+        assertEquals(clientController.getInputSequence(), 1);
+    }
+
+    @Test
+    public void testMalformedStateIsRefused(){
+        GameView gameView = new GameView(165, 150);
+        gameView.createSecondScene(10, 165, 15, 10);
+        clientController.setView(gameView);
+        clientController.models.add(new GameModel());
+        //a direction out of range and a snapshot cut short are refused before they touch the snake
+        byte[][] payloads = {PacketCodec.fields(1, 3, 0, 9, 1, 1, 0, 0, 4, 4, 0), PacketCodec.fields(1, 40, 0, 0)};
+        for (byte[] payload : payloads) {
+            try {
+                clientController.applySnapshot(payload);
+                fail();
+            } catch (IllegalArgumentException exception) {
+                assertEquals(clientController.getTick(), -1);
+            }
+        }
+        try {
+            Leaderboard.decode(PacketCodec.fields(Level.values().length, 0));
+            fail();
+        } catch (IllegalArgumentException exception) {
+            assertEquals(clientController.getLeaders().size(), 0);
+        }
+    }
+
+    @Test
+    public void testStateAfterHitIsIgnored(){
+        GameView gameView = new GameView(165, 150);
+        gameView.createSecondScene(10, 165, 15, 10);
+        clientController.setView(gameView);
+        clientController.models.add(new GameModel());
+        clientController.models.get(0).setSpeed(Integer.MAX_VALUE);
+        GameModel server = new GameModel();
+        server.initialiseSnake(3, 4, 4);
+        StateSync sync = new StateSync();
+        sync.start(server);
+        //the game ends before its first state arrives, the late snapshot must not start it again
+        clientController.diffElement(new Packet(MessageType.HIT, new byte[0]));
+        clientController.diffElement(new Packet(MessageType.SNAPSHOT, sync.encode(MessageType.SNAPSHOT, server, 1, 1)));
+        assertEquals(clientController.getModels().get(0).getIsStart(), false);
+        assertEquals(clientController.getConfirmed().getIsStart(), false);
+        assertEquals(clientController.getTick(), -1);
+    }
+
+    @Test
+    public void testSnapshotOfLongSnake(){
+        GameView gameView = new GameView(165, 150);
+        gameView.createSecondScene(10, 165, 15, 200);
+        clientController.setView(gameView);
+        clientController.setNum(200);
+        clientController.models.add(new GameModel());
+        clientController.models.get(0).setSpeed(Integer.MAX_VALUE);
+        //a snake winding over 25 rows of a 200x200 board, far more cells than fit in longPacketLength
+        int[] body = new int[5000];
+        for (int i = 0; i < body.length; i++) {
+            int y = i / 200;
+            body[i] = GameModel.pack(y % 2 == 0 ? i % 200 : 199 - i % 200, y);
+        }
+        GameModel server = new GameModel();
+        server.resetBody(body, body.length, 0);
+        server.setDirection(Direction.LEFT);
+        StateSync sync = new StateSync();
+        sync.start(server);
+        ByteBuffer datagram = new PacketCodec().encode(MessageType.SNAPSHOT, 0, sync.write(MessageType.SNAPSHOT, server, 1, 30));
+        assertTrue(datagram.limit() > GameConstants.longPacketLength);
+        clientController.diffElement(PacketCodec.decode(datagram));
+        GameModel client = clientController.getModels().get(0);
+        assertEquals(client.getLength(), body.length);
+        for (int i = 0; i < body.length; i++) {
+            assertEquals(GameModel.pack(client.getX(i), client.getY(i)), body[i]);
+        }
+    }
+}
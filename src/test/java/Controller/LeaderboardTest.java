@@ -0,0 +1,190 @@
+package Controller;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class LeaderboardTest {
+
+    private File file;
+
+    @Before
+    public void setup() throws IOException {
+        file = File.createTempFile("leaderboard", ".txt");
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void testTopAndPersonalBest() {
+        Leaderboard leaderboard = new Leaderboard(file);
+        assertNull(leaderboard.best());
+        leaderboard.submit("Amy", Level.L5, 3);
+        leaderboard.submit("Bob", Level.L5, 7);
+        leaderboard.submit("Amy", Level.L5, 5);
+        leaderboard.submit("Amy", Level.L1, 9);
+        List<Leaderboard.Entry> top = leaderboard.top(Level.L5, 2);
+        assertEquals(top.size(), 2);
+        assertEquals(top.get(0).getPlayer(), "Bob");
+        assertEquals(top.get(1).getScore(), 5);
+        assertEquals(leaderboard.top(Level.L5, 10).size(), 3);
+        assertEquals(leaderboard.personalBest("Amy", Level.L5).getScore(), 5);
+        assertEquals(leaderboard.personalBest("Amy").getScore(), 9);
+        assertNull(leaderboard.personalBest("Bob", Level.L1));
+        assertEquals(leaderboard.best().getPlayer(), "Amy");
+        assertEquals(leaderboard.getCount(), 4);
+    }
+
+    @Test
+    public void testReopen() {
+        Leaderboard leaderboard = new Leaderboard(file);
+        leaderboard.submit("Amy", Level.L2, 4);
+        leaderboard.submit("Bob", Level.L2, 6);
+        leaderboard.flush();
+        Leaderboard reopened = new Leaderboard(file);
+        assertEquals(reopened.getCount(), 2);
+        assertEquals(reopened.top(Level.L2, 1).get(0).getPlayer(), "Bob");
+        assertEquals(reopened.personalBest("Amy", Level.L2).getScore(), 4);
+    }
+
+    @Test
+    public void testOnlyTopIsKept() {
+        Leaderboard leaderboard = new Leaderboard(file);
+        for (int i = 0; i < Leaderboard.TOP * 2; i++) {
+            leaderboard.submit("P" + i, Level.L9, i);
+        }
+        List<Leaderboard.Entry> top = leaderboard.top(Level.L9, Leaderboard.TOP * 2);
+        assertEquals(top.size(), Leaderboard.TOP);
+        assertEquals(top.get(0).getScore(), Leaderboard.TOP * 2 - 1);
+        assertEquals(top.get(Leaderboard.TOP - 1).getScore(), Leaderboard.TOP);
+        //personal bests are kept for every player, not only the ranked ones
+        assertEquals(leaderboard.personalBest("P0", Level.L9).getScore(), 0);
+    }
+
+    @Test
+    public void testOldRecordIsKept() throws IOException {
+        //the baseline wrote player:score without a line break, the games appended after it stay separate
+        Files.write(file.toPath(), "Amy:12".getBytes(StandardCharsets.UTF_8));
+        Leaderboard leaderboard = new Leaderboard(file);
+        assertEquals(leaderboard.getCount(), 1);
+        leaderboard.submit("Bob", Level.L5, 3);
+        leaderboard.flush();
+        Leaderboard reopened = new Leaderboard(file);
+        assertEquals(reopened.getCount(), 2);
+        assertEquals(reopened.best().getPlayer(), "Amy");
+        assertEquals(reopened.best().getScore(), 12);
+        assertEquals(reopened.personalBest("Bob", Level.L5).getScore(), 3);
+    }
+
+    @Test
+    public void testGamesBeforeOpenAreKept() throws IOException {
+        Files.write(file.toPath(), "5,L3,8,Bob\n".getBytes(StandardCharsets.UTF_8));
+        AsyncFileWriter writer = new AsyncFileWriter();
+        Leaderboard leaderboard = new Leaderboard(null, writer);
+        leaderboard.submit("Amy", Level.L2, 4);
+        //the log is read into the same leaderboard and the game played before it was open is written to it
+        leaderboard.open(file);
+        assertEquals(leaderboard.getCount(), 2);
+        assertEquals(leaderboard.best().getPlayer(), "Bob");
+        leaderboard.submit("Cy", Level.L2, 9);
+        leaderboard.flush();
+        Leaderboard reopened = new Leaderboard(file);
+        assertEquals(reopened.getCount(), 3);
+        assertEquals(reopened.personalBest("Amy", Level.L2).getScore(), 4);
+        assertEquals(reopened.best().getPlayer(), "Cy");
+    }
+
+    @Test
+    public void testOldRecordAndCutLines() throws IOException {
+        //the single line of an older record.txt is read as a game, a line cut while it was written is skipped
+        Files.write(file.toPath(), "Amy:12".getBytes(StandardCharsets.UTF_8));
+        Files.write(file.toPath(), "\n5,L3,8,Bob\n17,L3,1".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        Leaderboard leaderboard = new Leaderboard(file);
+        assertEquals(leaderboard.getCount(), 2);
+        assertEquals(leaderboard.best().getPlayer(), "Amy");
+        assertEquals(leaderboard.best().getScore(), 12);
+        assertEquals(leaderboard.top(Level.L3, 5).size(), 1);
+    }
+
+    @Test
+    public void testConcurrentSubmissions() throws InterruptedException {
+        //games ending on many threads at once are all ranked, the top games are exactly the best of all of them
+        final Leaderboard leaderboard = new Leaderboard(file);
+        final int threads = 8;
+        final int games = 2000;
+        final int[][] scores = new int[threads][games];
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            final int thread = t;
+            final Random random = new Random(t);
+            for (int i = 0; i < games; i++) {
+                scores[t][i] = random.nextInt(100000);
+            }
+            workers[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < games; i++) {
+                        leaderboard.submit("P" + thread, Level.L4, scores[thread][i]);
+                    }
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        int[] all = new int[threads * games];
+        for (int t = 0; t < threads; t++) {
+            System.arraycopy(scores[t], 0, all, t * games, games);
+            int personal = 0;
+            for (int score : scores[t]) {
+                personal = Math.max(personal, score);
+            }
+            assertEquals(leaderboard.personalBest("P" + t, Level.L4).getScore(), personal);
+        }
+        Arrays.sort(all);
+        List<Leaderboard.Entry> top = leaderboard.top(Level.L4, Leaderboard.TOP);
+        assertEquals(top.size(), Leaderboard.TOP);
+        for (int i = 0; i < Leaderboard.TOP; i++) {
+            assertEquals(top.get(i).getScore(), all[all.length - 1 - i]);
+        }
+        assertEquals(leaderboard.best().getScore(), all[all.length - 1]);
+        assertEquals(leaderboard.getCount(), threads * games);
+        leaderboard.flush();
+        assertEquals(new Leaderboard(file).getCount(), threads * games);
+    }
+
+    @Test
+    public void testEncode() {
+        Leaderboard leaderboard = new Leaderboard(null);
+        leaderboard.submit("Amy", Level.L6, 3);
+        leaderboard.submit("Bob", Level.L6, 8);
+        List<Leaderboard.Entry> leaders = Leaderboard.decode(Leaderboard.encode(Level.L6, leaderboard.top(Level.L6, 10), 100));
+        assertEquals(leaders.size(), 2);
+        assertEquals(leaders.get(0).getPlayer(), "Bob");
+        assertEquals(leaders.get(0).getLevel(), Level.L6);
+        assertEquals(leaders.get(1).getScore(), 3);
+        //names that do not fit are left out
+        assertEquals(Leaderboard.decode(Leaderboard.encode(Level.L6, leaderboard.top(Level.L6, 10), 16)).size(), 1);
+    }
+
+    @Test
+    public void testLevelOfSpeed() {
+        assertEquals(Level.of(Level.L5.speed), Level.L5);
+        assertEquals(Level.of(1), Level.L1);
+    }
+}
@@ -0,0 +1,99 @@
+package Controller;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class NetworkLoopTest {
+
+    private NetworkLoop network;
+    private DatagramSocket client;
+
+    @Before
+    public void setup() throws Exception {
+        //echo every packet back to its sender
+        network = new NetworkLoop(0, new NetworkLoop.Receiver() {
+            private final PacketCodec codec = new PacketCodec();
+
+            @Override
+            public void receive(SocketAddress address, Packet packet) {
+                network.send(address, codec.encode(packet.getType(), packet.getSession(), packet.getPayload()));
+            }
+        });
+        network.start();
+        client = new DatagramSocket();
+        client.setSoTimeout(2000);
+    }
+
+    @After
+    public void tearDown() {
+        client.close();
+        network.close();
+    }
+
+    @Test
+    public void testEcho() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            send(new PacketCodec().encode(MessageType.DIRECTION, 7, PacketCodec.fields(i)));
+            Packet packet = receive();
+            assertEquals(packet.getType(), MessageType.DIRECTION);
+            assertEquals(packet.getSession(), 7);
+            assertEquals(PacketCodec.field(packet.getPayload(), 0), i);
+        }
+    }
+
+    @Test
+    public void testMalformedDatagramIsDropped() throws Exception {
+        send(ByteBuffer.wrap(new byte[]{9, 9, 9}));
+        send(new PacketCodec().encode(MessageType.ACK, PacketCodec.fields(3)));
+        Packet packet = receive();
+        assertEquals(packet.getType(), MessageType.ACK);
+        assertEquals(PacketCodec.field(packet.getPayload(), 0), 3);
+    }
+
+    @Test
+    public void testFailedSendDoesNotStopOthers() throws Exception {
+        //an address that cannot be sent to must not hold up the datagrams queued behind it
+        network.send(InetSocketAddress.createUnresolved("nowhere.invalid", 1), ByteBuffer.wrap(new byte[]{1, 2, 3}));
+        send(new PacketCodec().encode(MessageType.ACK, PacketCodec.fields(5)));
+        Packet packet = receive();
+        assertEquals(PacketCodec.field(packet.getPayload(), 0), 5);
+        assertEquals(network.getDropped(), 1);
+    }
+
+    @Test
+    public void testQueueIsBounded() throws Exception {
+        //a loop that is not sending keeps no more datagrams than its pool has buffers
+        NetworkLoop stalled = new NetworkLoop(0, new NetworkLoop.Receiver() {
+            @Override
+            public void receive(SocketAddress address, Packet packet) {
+            }
+        });
+        SocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), 9);
+        for (int i = 0; i < 300; i++) {
+            stalled.send(address, ByteBuffer.wrap(new byte[]{1}));
+        }
+        assertEquals(stalled.getDropped(), 300 - 256);
+        stalled.start();
+        stalled.close();
+    }
+
+    private void send(ByteBuffer data) throws Exception {
+        client.send(new DatagramPacket(data.array(), data.limit(), InetAddress.getLoopbackAddress(), network.getLocalPort()));
+    }
+
+    private Packet receive() throws Exception {
+        DatagramPacket response = new DatagramPacket(new byte[1000], 1000);
+        client.receive(response);
+        return PacketCodec.decode(response.getData(), 0, response.getLength());
+    }
+}
@@ -0,0 +1,73 @@
+package Controller;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class PacketCodecTest {
+    private PacketCodec codec = new PacketCodec();
+
+    @Test
+    public void testRoundTrip() {
+        ByteBuffer data = codec.encode(MessageType.EATEN, PacketCodec.fields(12, 300));
+        //version, type, sequence, session, length and three payload bytes
+        assertEquals(data.limit(), 8);
+        Packet packet = PacketCodec.decode(Arrays.copyOf(data.array(), data.limit()), 0, data.limit());
+        assertEquals(packet.getType(), MessageType.EATEN);
+        assertEquals(packet.getSequence(), 1);
+        assertEquals(PacketCodec.field(packet.getPayload(), 0), 12);
+        assertEquals(PacketCodec.field(packet.getPayload(), 1), 300);
+        data = codec.encode(MessageType.NAME, 123456, "Amy".getBytes());
+        packet = PacketCodec.decode(data);
+        assertEquals(packet.getType(), MessageType.NAME);
+        assertEquals(packet.getSequence(), 2);
+        assertEquals(packet.getSession(), 123456);
+        assertEquals(new String(packet.getPayload()), "Amy");
+    }
+
+    @Test
+    public void testVarint() {
+        ByteBuffer buffer = ByteBuffer.allocate(20);
+        PacketCodec.putVarint(buffer, 127);
+        PacketCodec.putVarint(buffer, 128);
+        PacketCodec.putVarint(buffer, Integer.MAX_VALUE);
+        PacketCodec.putVarint(buffer, -1);
+        assertEquals(buffer.position(), 1 + 2 + 5 + 5);
+        buffer.flip();
+        assertEquals(PacketCodec.getVarint(buffer), 127);
+        assertEquals(PacketCodec.getVarint(buffer), 128);
+        assertEquals(PacketCodec.getVarint(buffer), Integer.MAX_VALUE);
+        assertEquals(PacketCodec.getVarint(buffer), -1);
+    }
+
+    @Test
+    public void testMissingFieldsReadAsZero() {
+        byte[] payload = new byte[]{5};
+        assertEquals(PacketCodec.field(payload, 0), 5);
+        assertEquals(PacketCodec.field(payload, 1), 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsUnknownVersion() {
+        PacketCodec.decode(new byte[]{9, 2, 1, 0, 0}, 0, 5);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsUnknownType() {
+        PacketCodec.decode(new byte[]{PacketCodec.VERSION, 100, 1, 0, 0}, 0, 5);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsTruncatedPayload() {
+        PacketCodec.decode(new byte[]{PacketCodec.VERSION, 2, 1, 0, 5, 1}, 0, 6);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsTruncatedVarint() {
+        //a field whose last byte still says another one follows
+        PacketCodec.field(new byte[]{5, (byte) 0x80}, 1);
+    }
+}
@@ -0,0 +1,133 @@
+package Controller;
+
+import Model.GameModel;
+import org.junit.After;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class RoomManagerTest {
+
+    private RoomManager manager;
+
+    @After
+    public void tearDown() {
+        manager.shutdown();
+    }
+
+    @Test
+    public void testThousandsOfPlayers() throws Exception {
+        int players = 2000;
+        CountDownLatch joined = new CountDownLatch(players);
+        CountDownLatch finished = new CountDownLatch(players);
+        AtomicInteger updates = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        Set<Integer> opened = ConcurrentHashMap.newKeySet();
+        Set<Integer> closed = ConcurrentHashMap.newKeySet();
+        Set<Thread> workers = ConcurrentHashMap.newKeySet();
+        manager = new RoomManager(4, 20, 20, 8, 3, new Room.Host() {
+            @Override
+            public void opened(Room room) {
+                opened.add(room.getId());
+            }
+
+            @Override
+            public void closed(Room room) {
+                closed.add(room.getId());
+            }
+
+            @Override
+            public void joined(Session session) {
+                joined.countDown();
+            }
+
+            @Override
+            public void rejected(Session session) {
+                rejected.incrementAndGet();
+            }
+
+            @Override
+            public void update(Session session) {
+                updates.incrementAndGet();
+                workers.add(Thread.currentThread());
+            }
+
+            @Override
+            public void finished(Session session) {
+                manager.leave(session);
+                finished.countDown();
+            }
+        });
+        //how many rooms are open at once depends on how fast the first snakes die, only what holds
+        //whatever the scheduling is checked: no room over capacity, every room closed once it is empty
+        for (int i = 0; i < players; i++) {
+            GameModel model = new GameModel();
+            model.setSnakeSpeed(9);
+            Room room = manager.join(new Session(new InetSocketAddress("localhost", 10000 + i), i + 1, model));
+            assertTrue(room.getSize() <= 8);
+        }
+        assertFalse(opened.isEmpty());
+        assertTrue(joined.await(60, TimeUnit.SECONDS));
+        //every snake runs right into the wall, which closes every room
+        assertTrue(finished.await(60, TimeUnit.SECONDS));
+        assertEquals(rejected.get(), 0);
+        assertTrue(updates.get() > 0);
+        assertTrue(workers.size() >= 1 && workers.size() <= 4);
+        for (Thread worker : workers) {
+            assertTrue(worker.getName().startsWith("room-shard-"));
+        }
+        //a room is closed by the leave of its last snake, which comes before that snake's finished
+        assertEquals(manager.getRoomCount(), 0);
+        assertEquals(closed, opened);
+    }
+
+    @Test
+    public void testRoomsByLevel() {
+        manager = new RoomManager(2, 20, 20, 2, 3, new Room.Host() {
+            @Override
+            public void opened(Room room) {
+            }
+
+            @Override
+            public void closed(Room room) {
+            }
+
+            @Override
+            public void joined(Session session) {
+            }
+
+            @Override
+            public void rejected(Session session) {
+            }
+
+            @Override
+            public void update(Session session) {
+            }
+
+            @Override
+            public void finished(Session session) {
+            }
+        });
+        Room first = manager.join(newSession(1, 1));
+        assertSame(manager.join(newSession(2, 1)), first);
+        Room full = manager.join(newSession(3, 1));
+        assertNotSame(full, first);
+        Room faster = manager.join(newSession(4, 5));
+        assertNotSame(faster, full);
+        assertEquals(faster.getSpeed(), Level.L5.speed);
+        assertEquals(manager.getRoomCount(), 3);
+    }
+
+    private Session newSession(int token, int level) {
+        GameModel model = new GameModel();
+        model.setSnakeSpeed(level);
+        return new Session(new InetSocketAddress("localhost", 10000 + token), token, model);
+    }
+}
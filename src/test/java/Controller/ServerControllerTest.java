@@ -34,7 +34,7 @@ public class ServerControllerTest {
         models = new ArrayList<>();
         GameModel model = new GameModel();
         models.add(model);
-        models.get(0).initialiseSnake(3, 50, 50, grid);
+        models.get(0).initialiseSnake(3, 5, 5);
         gameView = new GameView(165, 150);
         gameView.setMode("Local");
         gameView.createSecondScene(grid, 150, 15, num);
@@ -93,23 +93,35 @@ public class ServerControllerTest {
 
     @Test
     public void testSetDirection(){
+        //turns are queued and taken by the next move, a reversal of the last move is dropped
         serverController.setDirection(models.get(0), 0);
+        assertEquals(models.get(0).getDirection(), Direction.RIGHT);
+        models.get(0).applyInputs();
         assertEquals(models.get(0).getDirection(), Direction.UP);
+        models.get(0).setLastDirection(Direction.UP);
         serverController.setDirection(models.get(0), 1);
-        assertEquals(models.get(0).getDirection(), Direction.DOWN);
+        models.get(0).applyInputs();
+        assertEquals(models.get(0).getDirection(), Direction.UP);
         serverController.setDirection(models.get(0), 2);
+        models.get(0).applyInputs();
         assertEquals(models.get(0).getDirection(), Direction.LEFT);
+        models.get(0).setLastDirection(Direction.LEFT);
         serverController.setDirection(models.get(0), 3);
-        assertEquals(models.get(0).getDirection(), Direction.RIGHT);
+        models.get(0).applyInputs();
+        assertEquals(models.get(0).getDirection(), Direction.LEFT);
     }
 
     @Test
     public void testDiffElement(){
         byte[] payload = new byte[10];
-        payload[0] = 2;
+        payload[0] = 1;
+        payload[1] = 7;
         Packet packet = new Packet(MessageType.DIRECTION, payload);
         serverController.diffElement(models.get(0), packet);
-        assertEquals(models.get(0).getDirection(), Direction.LEFT);
+        models.get(0).applyInputs();
+        assertEquals(models.get(0).getDirection(), Direction.DOWN);
+        assertEquals(models.get(0).getInputSequence(), 7);
+        payload[0] = 2;
         packet.setType(MessageType.LEVEL);
         serverController.diffElement(models.get(0), packet);
         assertEquals(models.get(0).getSpeed(), Level.L2.speed);
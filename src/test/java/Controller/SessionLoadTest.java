@@ -0,0 +1,150 @@
+package Controller;
+
+import Constants.GameConstants;
+import Model.GameModel;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class SessionLoadTest {
+
+    private ServerController serverController;
+    private List<DatagramSocket> clients = new ArrayList<>();
+
+    @Before
+    public void setup() {
+        //no view, the server runs without JavaFX like on a host without a display
+        serverController = new ServerController();
+        serverController.setModels(new ArrayList<GameModel>());
+        serverController.setNum(15);
+        serverController.setPort(0);
+        serverController.startGame();
+    }
+
+    @After
+    public void tearDown() {
+        for (DatagramSocket client : clients) {
+            client.close();
+        }
+        serverController.stopNetwork();
+    }
+
+    @Test
+    public void testRampUpClients() throws Exception {
+        //ramp up synthetic clients, every one of them must get its own session and its first state,
+        //games that already ran into the wall close their sessions, so the tokens are counted instead
+        Set<Integer> tokens = new HashSet<>();
+        int[] steps = {50, 100, 200};
+        for (int total : steps) {
+            int first = clients.size();
+            for (int i = first; i < total; i++) {
+                DatagramSocket client = new DatagramSocket();
+                client.setSoTimeout(2000);
+                clients.add(client);
+                send(client, MessageType.NAME, 0, ("Bot" + i).getBytes());
+                send(client, MessageType.LEVEL, 0, PacketCodec.fields(1));
+            }
+            for (int i = first; i < total; i++) {
+                tokens.add(awaitWelcomeAndState(clients.get(i)));
+            }
+            assertEquals(tokens.size(), total);
+            assertTrue(serverController.getSessions().size() <= total);
+        }
+    }
+
+    @Test
+    public void testWrongTokenIsDropped() throws Exception {
+        DatagramSocket client = new DatagramSocket();
+        client.setSoTimeout(2000);
+        clients.add(client);
+        send(client, MessageType.NAME, 0, "Amy".getBytes());
+        Packet welcome = receive(client);
+        assertEquals(welcome.getType(), MessageType.WELCOME);
+        int token = PacketCodec.field(welcome.getPayload(), 0);
+        assertEquals(welcome.getSession(), token);
+
+        //a level from the same address with a forged token must not start the game
+        send(client, MessageType.LEVEL, token + 1, PacketCodec.fields(1));
+        client.setSoTimeout(300);
+        try {
+            receive(client);
+            fail("the game should not have started");
+        } catch (SocketTimeoutException expected) {
+            //nothing was sent back
+        }
+        client.setSoTimeout(2000);
+        send(client, MessageType.LEVEL, token, PacketCodec.fields(1));
+        assertEquals(receive(client).getType(), MessageType.SNAPSHOT);
+        //the client has used its token, a token of 0 from its address is now dropped
+        Session session = serverController.getSessions().get(new InetSocketAddress(
+                InetAddress.getLoopbackAddress(), client.getLocalPort()));
+        assertNotNull(session);
+        long deadline = System.currentTimeMillis() + 3000;
+        while (session.getSync().getTick() < 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        int acked = session.getSync().getAckedTick();
+        send(client, MessageType.ACK, 0, PacketCodec.fields(1));
+        Thread.sleep(200);
+        assertEquals(session.getSync().getAckedTick(), acked);
+    }
+
+    @Test
+    public void testSilentSessionExpires() throws Exception {
+        //a client that only sends its name is welcomed, but its session and snake go once it stays silent
+        DatagramSocket client = new DatagramSocket();
+        client.setSoTimeout(2000);
+        clients.add(client);
+        send(client, MessageType.NAME, 0, "Amy".getBytes());
+        assertEquals(receive(client).getType(), MessageType.WELCOME);
+        assertEquals(serverController.getSessions().size(), 1);
+        assertEquals(serverController.getModels().size(), 1);
+        serverController.expireSessions(System.nanoTime());
+        assertEquals(serverController.getSessions().size(), 1);
+        serverController.expireSessions(System.nanoTime() + TimeUnit.SECONDS.toNanos(GameConstants.sessionTimeout + 1));
+        assertEquals(serverController.getSessions().size(), 0);
+        assertEquals(serverController.getModels().size(), 0);
+    }
+
+    private int awaitWelcomeAndState(DatagramSocket client) throws Exception {
+        int token = 0;
+        while (true) {
+            Packet packet = receive(client);
+            if (packet.getType() == MessageType.WELCOME) {
+                token = PacketCodec.field(packet.getPayload(), 0);
+                //every session numbers its own datagrams, however many other clients are served
+                assertEquals(packet.getSequence(), 1);
+            } else if (packet.getType() == MessageType.SNAPSHOT) {
+                assertNotEquals(token, 0);
+                assertEquals(packet.getSession(), token);
+                assertEquals(packet.getSequence(), 2);
+                return token;
+            }
+        }
+    }
+
+    private void send(DatagramSocket client, MessageType type, int token, byte[] payload) throws Exception {
+        ByteBuffer data = new PacketCodec().encode(type, token, payload);
+        client.send(new DatagramPacket(data.array(), data.limit(), InetAddress.getLoopbackAddress(), serverController.getLocalPort()));
+    }
+
+    private Packet receive(DatagramSocket client) throws Exception {
+        DatagramPacket response = new DatagramPacket(new byte[1000], 1000);
+        client.receive(response);
+        return PacketCodec.decode(response.getData(), 0, response.getLength());
+    }
+}
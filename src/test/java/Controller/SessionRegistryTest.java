@@ -0,0 +1,53 @@
+package Controller;
+
+import Model.GameModel;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SessionRegistryTest {
+
+    @Test
+    public void testTokenZeroOnlyBeforeConfirmation() {
+        SessionRegistry sessions = new SessionRegistry();
+        Session session = sessions.open(new InetSocketAddress("127.0.0.1", 5000), new GameModel());
+        assertNotEquals(session.getToken(), 0);
+        //before the client has learned its token it sends 0
+        assertTrue(sessions.accepts(session, 0));
+        assertFalse(sessions.accepts(session, session.getToken() + 1));
+        assertTrue(sessions.accepts(session, session.getToken()));
+        //an established session refuses 0, so a spoofed address alone gets nowhere
+        assertFalse(sessions.accepts(session, 0));
+        assertTrue(sessions.accepts(session, session.getToken()));
+    }
+
+    @Test
+    public void testExpireOnlyGamesNotStarted() {
+        SessionRegistry sessions = new SessionRegistry();
+        Session waiting = sessions.open(new InetSocketAddress("127.0.0.1", 5002), new GameModel());
+        Session playing = sessions.open(new InetSocketAddress("127.0.0.1", 5003), new GameModel());
+        playing.setStarted(true);
+        long now = System.nanoTime();
+        assertTrue(sessions.expire(now, 1000000000L).isEmpty());
+        //a running game is closed when it ends, however quiet its client is
+        List<Session> expired = sessions.expire(now + 2000000000L, 1000000000L);
+        assertEquals(expired.size(), 1);
+        assertEquals(expired.get(0), waiting);
+        assertNull(sessions.get(waiting.getAddress()));
+        assertEquals(sessions.get(playing.getAddress()), playing);
+    }
+
+    @Test
+    public void testOpenAndClose() {
+        SessionRegistry sessions = new SessionRegistry();
+        InetSocketAddress address = new InetSocketAddress("127.0.0.1", 5001);
+        Session session = sessions.open(address, new GameModel());
+        assertEquals(sessions.get(address), session);
+        assertEquals(sessions.size(), 1);
+        sessions.close(session);
+        assertNull(sessions.get(address));
+    }
+}
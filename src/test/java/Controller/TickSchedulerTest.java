@@ -0,0 +1,73 @@
+package Controller;
+
+import Model.GameModel;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class TickSchedulerTest {
+    private TickScheduler scheduler = new TickScheduler(2);
+
+    @Test
+    public void testModelsShareBucket() throws InterruptedException {
+        AtomicInteger first = new AtomicInteger();
+        AtomicInteger second = new AtomicInteger();
+        GameModel firstModel = createModel(Level.L9);
+        GameModel secondModel = createModel(Level.L9);
+        scheduler.register(firstModel, first::incrementAndGet);
+        scheduler.register(secondModel, second::incrementAndGet);
+        assertEquals(scheduler.getModelCount(), 2);
+        Thread.sleep(20 * Level.L9.speed);
+        assertTrue(first.get() > 5);
+        //both models are ticked by the same clock, so they cannot be more than one tick apart
+        assertTrue(Math.abs(first.get() - second.get()) <= 1);
+        assertTrue(scheduler.getMaxJitterNanos() >= scheduler.getMeanJitterNanos());
+    }
+
+    @Test
+    public void testFinishedModelLeavesSchedule() throws InterruptedException {
+        AtomicInteger steps = new AtomicInteger();
+        GameModel model = createModel(Level.L9);
+        scheduler.register(model, steps::incrementAndGet);
+        Thread.sleep(5 * Level.L9.speed);
+        model.setIsStart(false);
+        Thread.sleep(3 * Level.L9.speed);
+        int stopped = steps.get();
+        Thread.sleep(5 * Level.L9.speed);
+        assertEquals(steps.get(), stopped);
+        assertEquals(scheduler.getModelCount(), 0);
+    }
+
+    @Test
+    public void testFailingStepStopsOnlyItsGame() throws InterruptedException {
+        AtomicInteger steps = new AtomicInteger();
+        GameModel failing = createModel(Level.L9);
+        GameModel running = createModel(Level.L9);
+        scheduler.register(failing, new Runnable() {
+            @Override
+            public void run() {
+                throw new IllegalStateException("broken");
+            }
+        });
+        scheduler.register(running, steps::incrementAndGet);
+        Thread.sleep(10 * Level.L9.speed);
+        assertFalse(failing.getIsStart());
+        assertTrue(running.getIsStart());
+        assertTrue(steps.get() > 2);
+    }
+
+    private GameModel createModel(Level level) {
+        GameModel model = new GameModel();
+        model.setSpeed(level.speed);
+        model.setIsStart(true);
+        return model;
+    }
+
+    @After
+    public void cleanup() {
+        scheduler.shutdown();
+    }
+}
@@ -0,0 +1,178 @@
+package Engine;
+
+import Model.Board;
+import Model.Direction;
+import Model.GameModel;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class ArenaTest {
+
+    private GameModel addSnake(Arena arena, int length, int headX, int headY, Direction direction) {
+        GameModel snake = new GameModel();
+        snake.setBoard(arena.getBoard());
+        snake.initialiseSnake(length, headX, headY);
+        snake.setDirection(direction);
+        snake.setLastDirection(direction);
+        snake.setIsStart(true);
+        arena.add(snake);
+        return snake;
+    }
+
+    private Arena newArena(int size) {
+        Arena arena = new Arena(new Board(size, size), new Random(1));
+        //food out of the way unless a test moves it
+        arena.setFood(size - 1, size - 1);
+        return arena;
+    }
+
+    @Test
+    public void testHeadToHead() {
+        Arena arena = newArena(20);
+        GameModel first = addSnake(arena, 3, 5, 5, Direction.DOWN);
+        GameModel second = addSnake(arena, 3, 5, 7, Direction.UP);
+        GameModel other = addSnake(arena, 3, 10, 10, Direction.RIGHT);
+        assertEquals(arena.step(), 1);
+        assertFalse(first.getIsStart());
+        assertFalse(second.getIsStart());
+        assertTrue(other.getIsStart());
+        //the dead snakes are gone from the board
+        assertFalse(arena.getBoard().isOccupied(4, 5));
+        assertFalse(arena.getBoard().isOccupied(5, 6));
+    }
+
+    @Test
+    public void testHeadToBody() {
+        Arena arena = newArena(20);
+        GameModel wall = addSnake(arena, 5, 10, 6, Direction.RIGHT);
+        GameModel runner = addSnake(arena, 3, 8, 5, Direction.DOWN);
+        arena.step();
+        assertFalse(runner.getIsStart());
+        assertTrue(wall.getIsStart());
+        assertTrue(arena.getBoard().isOccupied(8, 6));
+    }
+
+    @Test
+    public void testFollowingATail() {
+        //the head may enter the cell a tail leaves in the same tick
+        Arena arena = newArena(20);
+        GameModel leader = addSnake(arena, 3, 7, 5, Direction.RIGHT);
+        GameModel follower = addSnake(arena, 3, 5, 6, Direction.UP);
+        assertEquals(arena.step(), 2);
+        assertTrue(follower.getIsStart());
+        assertEquals(follower.getHeadX(), 5);
+        assertEquals(follower.getHeadY(), 5);
+        assertTrue(arena.getBoard().isOccupied(5, 5));
+        assertFalse(arena.getBoard().isOccupied(3, 6));
+        assertEquals(leader.getTailX(), 6);
+    }
+
+    @Test
+    public void testGrowingTailBlocks() {
+        Arena arena = newArena(20);
+        GameModel leader = addSnake(arena, 3, 7, 5, Direction.RIGHT);
+        leader.increaseLength();
+        GameModel follower = addSnake(arena, 3, 5, 6, Direction.UP);
+        arena.step();
+        assertFalse(follower.getIsStart());
+        assertTrue(leader.getIsStart());
+    }
+
+    @Test
+    public void testHeadIntoTailOfDyingSnake() {
+        Arena arena = newArena(20);
+        GameModel obstacle = addSnake(arena, 3, 10, 6, Direction.RIGHT);
+        GameModel dying = addSnake(arena, 3, 9, 5, Direction.DOWN);
+        GameModel follower = addSnake(arena, 3, 7, 4, Direction.DOWN);
+        //the dying snake runs into a body after its tail was counted as leaving, the follower takes that tail cell
+        assertEquals(arena.step(), 2);
+        assertFalse(dying.getIsStart());
+        assertTrue(follower.getIsStart());
+        assertTrue(obstacle.getIsStart());
+        assertTrue(arena.getBoard().isOccupied(7, 5));
+        //the room drops the dead snake afterwards, which must not clear the cell under the live head
+        arena.remove(dying);
+        assertTrue(arena.getBoard().isOccupied(7, 5));
+        assertEquals(arena.getSnakes().size(), 2);
+    }
+
+    @Test
+    public void testEating() {
+        Arena arena = newArena(20);
+        GameModel snake = addSnake(arena, 3, 5, 5, Direction.RIGHT);
+        arena.setFood(6, 5);
+        //the head moves onto the food, and eats it on the next tick as in a local game
+        arena.step();
+        assertEquals(snake.getScore(), 0);
+        arena.step();
+        assertEquals(snake.getScore(), 1);
+        assertEquals(snake.getLength(), 4);
+        assertFalse(arena.getFoodX() == 6 && arena.getFoodY() == 5);
+        assertTrue(arena.getBoard().isOccupied(5, 5));
+        assertTrue(arena.getBoard().isOccupied(4, 5));
+    }
+
+    @Test
+    public void testSameRuleAsLocalGame() {
+        //one snake running over a row of food scores the same in a room as in a local game
+        Arena arena = newArena(20);
+        GameModel roomSnake = addSnake(arena, 3, 5, 5, Direction.RIGHT);
+        GameModel localSnake = new GameModel();
+        localSnake.setBoard(new Board(20, 20));
+        localSnake.initialiseSnake(3, 5, 5);
+        localSnake.setIsStart(true);
+        GameEngine engine = new GameEngine(localSnake, new Random(1));
+        for (int x = 6; x < 20; x += 3) {
+            arena.setFood(x, 5);
+            engine.setFood(x, 5);
+            while (roomSnake.getHeadX() <= x && roomSnake.getIsStart()) {
+                arena.step();
+                engine.step();
+                assertEquals(roomSnake.getScore(), localSnake.getScore());
+                assertEquals(roomSnake.getLength(), localSnake.getLength());
+                assertEquals(roomSnake.getIsStart(), localSnake.getIsStart());
+            }
+        }
+        assertEquals(roomSnake.getScore(), 5);
+    }
+
+    @Test
+    public void testParallelTicksAreDeterministic() {
+        //the same game played on one thread and on four ends the same way
+        String single = play(new ForkJoinPool(1));
+        String parallel = play(new ForkJoinPool(4));
+        assertEquals(parallel, single);
+    }
+
+    private String play(ForkJoinPool pool) {
+        Arena arena = new Arena(new Board(100, 100), new Random(3), pool);
+        for (int i = 0; i < 150; i++) {
+            addSnake(arena, 4, 10 + (i % 3) * 30, 10 + (i / 3) * 2 % 90, Direction.RIGHT);
+        }
+        arena.placeFood();
+        Random turns = new Random(5);
+        Direction[] directions = Direction.values();
+        for (int tick = 0; tick < 300; tick++) {
+            for (GameModel snake : arena.getSnakes()) {
+                if (turns.nextInt(5) == 0) {
+                    Direction direction = directions[turns.nextInt(directions.length)];
+                    //UP and DOWN, LEFT and RIGHT are neighbours in the enum, a snake cannot turn back
+                    if (direction.ordinal() / 2 != snake.getLastDirection().ordinal() / 2) {
+                        snake.setDirection(direction);
+                    }
+                }
+            }
+            arena.step();
+        }
+        StringBuilder state = new StringBuilder();
+        for (GameModel snake : arena.getSnakes()) {
+            state.append(snake.getIsStart()).append(snake.getHeadX()).append(',').append(snake.getHeadY())
+                    .append(',').append(snake.getLength()).append(';');
+        }
+        return state.toString();
+    }
+}
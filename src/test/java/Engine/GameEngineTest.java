@@ -0,0 +1,132 @@
+package Engine;
+
+import Model.Board;
+import Model.Direction;
+import Model.GameModel;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class GameEngineTest {
+
+    private GameModel newModel(int size) {
+        GameModel model = new GameModel();
+        model.setBoard(new Board(size, size));
+        model.initialiseSnake(3, 5, 5);
+        model.setIsStart(true);
+        return model;
+    }
+
+    @Test
+    public void testEatAndMove() {
+        GameModel model = newModel(20);
+        GameEngine engine = new GameEngine(model, new Random(1));
+        int[] moves = new int[1];
+        int[] scores = new int[1];
+        engine.setListener(new GameListener() {
+            @Override
+            public void moved(GameModel model, int tailX, int tailY, boolean grew) {
+                moves[0]++;
+            }
+
+            @Override
+            public void scored(GameModel model) {
+                scores[0]++;
+            }
+        });
+        engine.setFood(5, 5);
+        assertTrue(engine.step());
+        assertEquals(model.getScore(), 1);
+        assertEquals(model.getLength(), 4);
+        assertEquals(model.getHeadX(), 6);
+        assertEquals(moves[0], 1);
+        assertEquals(scores[0], 1);
+        assertFalse(model.getBoard().isOccupied(engine.getFoodX(), engine.getFoodY()));
+    }
+
+    @Test
+    public void testWallEndsGame() {
+        GameModel model = newModel(10);
+        GameEngine engine = new GameEngine(model, new Random(1));
+        boolean[] ended = new boolean[1];
+        engine.setListener(new GameListener() {
+            @Override
+            public void ended(GameModel model) {
+                ended[0] = true;
+            }
+        });
+        engine.setFood(0, 0);
+        int ticks = engine.run(100);
+        assertEquals(ticks, 5);
+        assertFalse(model.getIsStart());
+        assertTrue(ended[0]);
+    }
+
+    @Test
+    public void testSeveralFoodItems() {
+        GameModel model = newModel(20);
+        GameEngine engine = new GameEngine(model, new Random(2), 5);
+        engine.placeFood();
+        Food food = engine.getFood();
+        Set<Integer> cells = new HashSet<>();
+        for (int i = 0; i < food.getCount(); i++) {
+            assertFalse(model.getBoard().isOccupied(food.getX(i), food.getY(i)));
+            cells.add(GameModel.pack(food.getX(i), food.getY(i)));
+        }
+        assertEquals(cells.size(), 5);
+    }
+
+    @Test
+    public void testFoodOnNearlyFullBoard() {
+        //only the last row and column are free, cells the old sampling never picked
+        GameModel model = newModel(10);
+        for (int x = 0; x < 10; x++) {
+            for (int y = 0; y < 10; y++) {
+                if (x < 9 && y < 9) {
+                    model.getBoard().occupy(x, y);
+                }
+            }
+        }
+        GameEngine engine = new GameEngine(model, new Random(3), 20);
+        engine.placeFood();
+        Food food = engine.getFood();
+        for (int i = 0; i < 19; i++) {
+            assertTrue(food.getX(i) == 9 || food.getY(i) == 9);
+        }
+        //every free cell holds food now, so the last item finds no place
+        assertEquals(food.getX(19), -1);
+    }
+
+    @Test
+    public void testManyHeadlessGames() {
+        //thousands of games run to the end without a display or a clock
+        Random turns = new Random(7);
+        Direction[] directions = Direction.values();
+        for (int game = 0; game < 2000; game++) {
+            GameModel model = newModel(30);
+            GameEngine engine = new GameEngine(model, new Random(game));
+            engine.placeFood();
+            int ticks = 0;
+            while (ticks < 1000 && engine.step()) {
+                ticks++;
+                if (turns.nextInt(4) == 0) {
+                    Direction direction = directions[turns.nextInt(directions.length)];
+                    if (!isOpposite(direction, model.getLastDirection())) {
+                        model.setDirection(direction);
+                    }
+                }
+            }
+            assertTrue(model.getLength() >= 3);
+            assertEquals(model.getLength(), 3 + model.getScore());
+        }
+    }
+
+    private boolean isOpposite(Direction first, Direction second) {
+        return (first == Direction.UP && second == Direction.DOWN) || (first == Direction.DOWN && second == Direction.UP)
+                || (first == Direction.LEFT && second == Direction.RIGHT) || (first == Direction.RIGHT && second == Direction.LEFT);
+    }
+}
@@ -0,0 +1,146 @@
+package Engine;
+
+import Model.Board;
+import Model.Direction;
+import Model.GameModel;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ReplayPlayerTest {
+
+    //plays a game with turns drawn from a second random, recording it, returns the engine as the game left it
+    private GameEngine record(ByteArrayOutputStream out, long seed, long inputSeed, int maxTicks) {
+        GameModel model = new GameModel();
+        model.setBoard(new Board(30, 30));
+        model.initialiseSnake(4, 10, 10);
+        model.setIsStart(true);
+        model.setPlayer("Amy");
+        GameEngine engine = new GameEngine(model, new Random(seed), 3);
+        engine.setRecorder(new ReplayRecorder(out, seed, model, 3));
+        engine.placeFood();
+        Random inputs = new Random(inputSeed);
+        for (int tick = 0; tick < maxTicks; tick++) {
+            if (inputs.nextInt(4) == 0) {
+                model.queueTurn(Direction.values()[inputs.nextInt(4)], tick);
+            }
+            if (!engine.step()) {
+                break;
+            }
+        }
+        return engine;
+    }
+
+    private int[] cells(GameModel model) {
+        int[] cells = new int[model.getLength()];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = GameModel.pack(model.getX(i), model.getY(i));
+        }
+        return cells;
+    }
+
+    @Test
+    public void testReplayIsIdentical() throws IOException {
+        for (long seed = 1; seed <= 20; seed++) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            GameEngine recorded = record(out, seed, seed * 31, 100000);
+            assertFalse(recorded.getModel().getIsStart());
+
+            ReplayPlayer replay = ReplayPlayer.read(new ByteArrayInputStream(out.toByteArray()));
+            assertEquals(replay.getPlayer(), "Amy");
+            assertEquals(replay.getScore(), recorded.getModel().getScore());
+            GameEngine played = replay.start();
+            assertEquals(replay.fastForward(), replay.getTicks());
+            GameModel model = played.getModel();
+            assertFalse(model.getIsStart());
+            assertEquals(model.getScore(), recorded.getModel().getScore());
+            assertTrue(Arrays.equals(cells(model), cells(recorded.getModel())));
+            for (int i = 0; i < 3; i++) {
+                assertEquals(played.getFood().getX(i), recorded.getFood().getX(i));
+                assertEquals(played.getFood().getY(i), recorded.getFood().getY(i));
+            }
+        }
+    }
+
+    @Test
+    public void testStepByStep() throws IOException {
+        //a watched replay goes through the same positions as the recorded game, tick by tick
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        GameEngine recorded = record(out, 7, 8, 100000);
+        ReplayPlayer replay = ReplayPlayer.read(new ByteArrayInputStream(out.toByteArray()));
+        GameEngine played = replay.start();
+        int ticks = 0;
+        while (replay.step()) {
+            ticks++;
+        }
+        assertEquals(ticks + 1, replay.getTicks());
+        assertEquals(played.getModel().getHeadX(), recorded.getModel().getHeadX());
+        assertEquals(played.getModel().getHeadY(), recorded.getModel().getHeadY());
+    }
+
+    @Test
+    public void testAppendedGames() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        record(out, 1, 2, 100000);
+        record(out, 3, 4, 100000);
+        List<ReplayPlayer> replays = ReplayPlayer.readAll(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(replays.size(), 2);
+        assertEquals(replays.get(1).getSeed(), 3);
+    }
+
+    @Test
+    public void testDamagedGamesAreSkipped() throws IOException {
+        //the second game was cut off while it was written and the third one has a flipped byte,
+        //the games around them are still read
+        ByteArrayOutputStream first = new ByteArrayOutputStream();
+        ByteArrayOutputStream second = new ByteArrayOutputStream();
+        ByteArrayOutputStream third = new ByteArrayOutputStream();
+        ByteArrayOutputStream fourth = new ByteArrayOutputStream();
+        record(first, 1, 2, 100000);
+        record(second, 3, 4, 100000);
+        record(third, 5, 6, 100000);
+        record(fourth, 7, 8, 100000);
+        byte[] damaged = third.toByteArray();
+        damaged[damaged.length - 2] ^= 0x10;
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        log.write(first.toByteArray());
+        log.write(second.toByteArray(), 0, second.size() / 2);
+        log.write(damaged);
+        log.write(fourth.toByteArray());
+        List<ReplayPlayer> replays = ReplayPlayer.readAll(new ByteArrayInputStream(log.toByteArray()));
+        assertEquals(replays.size(), 2);
+        assertEquals(replays.get(0).getSeed(), 1);
+        assertEquals(replays.get(1).getSeed(), 7);
+    }
+
+    @Test
+    public void testUnfinishedGameIsNotWritten() {
+        //a game only reaches the log when it ends, so an abandoned one holds no file open
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        GameEngine recorded = record(out, 5, 6, 10);
+        assertTrue(recorded.getModel().getIsStart());
+        assertEquals(out.size(), 0);
+    }
+
+    @Test
+    public void testFastForwardRate() throws IOException {
+        //headless playback runs thousands of ticks per second
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        record(out, 11, 12, 100000);
+        ReplayPlayer replay = ReplayPlayer.read(new ByteArrayInputStream(out.toByteArray()));
+        long start = System.nanoTime();
+        long ticks = 0;
+        while (System.nanoTime() - start < 200_000_000L) {
+            replay.start();
+            ticks += replay.fastForward();
+        }
+        assertTrue(ticks > 1000);
+    }
+}
@@ -0,0 +1,63 @@
+package Metrics;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class HistogramTest {
+
+    @Test
+    public void testBuckets() {
+        //every value falls into the bucket starting at or below it, and the buckets are in order
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(Histogram.lowest(i) < Histogram.lowest(i + 1));
+            assertEquals(Histogram.index(Histogram.lowest(i)), i);
+            assertEquals(Histogram.index(Histogram.lowest(i + 1) - 1), i);
+        }
+        assertEquals(Histogram.index(31), 31);
+        assertEquals(Histogram.index(32), 32);
+        assertEquals(Histogram.index(64), 64);
+        assertTrue(Histogram.index(Long.MAX_VALUE) < (64 - 5) * 32);
+    }
+
+    @Test
+    public void testPercentiles() {
+        Histogram histogram = new Histogram();
+        assertEquals(histogram.getPercentile(99), 0);
+        for (long i = 1; i <= 100000; i++) {
+            histogram.record(i * 1000);
+        }
+        assertEquals(histogram.getCount(), 100000);
+        assertEquals(histogram.getMax(), 100000000);
+        //within the 3% width of a bucket
+        assertEquals(histogram.getPercentile(50), 50000000, 50000000 * 0.04);
+        assertEquals(histogram.getPercentile(99), 99000000, 99000000 * 0.04);
+        assertEquals(histogram.getPercentile(100), 100000000);
+        assertEquals(histogram.getMean(), 50000500, 1);
+    }
+
+    @Test
+    public void testConcurrentRecording() throws InterruptedException {
+        final Histogram histogram = new Histogram();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final Random random = new Random(t);
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 50000; i++) {
+                        histogram.record(random.nextInt(1000000));
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(histogram.getCount(), 200000);
+        assertTrue(histogram.getMax() < 1000000);
+    }
+}
@@ -0,0 +1,47 @@
+package Metrics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LinkStatsTest {
+
+    @Test
+    public void testRoundTrip() {
+        LinkStats link = new LinkStats();
+        assertEquals(link.getRttNanos(), -1);
+        link.sent(1, 1000);
+        link.acked(1, 5000);
+        assertEquals(link.getRttNanos(), 4000);
+        link.sent(2, 6000);
+        link.acked(2, 18000);
+        assertEquals(link.getLastRttNanos(), 12000);
+        assertEquals(link.getRttNanos(), 5000);
+        assertEquals(link.getLoss(), 0, 0);
+    }
+
+    @Test
+    public void testLoss() {
+        LinkStats link = new LinkStats();
+        for (int tick = 1; tick <= 10; tick++) {
+            link.sent(tick, tick * 1000);
+        }
+        link.acked(1, 20000);
+        link.acked(4, 20000);//2 and 3 were lost
+        link.acked(3, 20000);//late, ignored
+        link.acked(10, 20000);//5 to 9 were lost
+        assertEquals(link.getDelivered(), 3);
+        assertEquals(link.getLost(), 7);
+        assertEquals(link.getLoss(), 0.7, 1e-9);
+    }
+
+    @Test
+    public void testForgottenStates() {
+        //an acknowledgement of a state no longer remembered gives no round trip
+        LinkStats link = new LinkStats();
+        link.sent(1, 1000);
+        link.sent(65, 2000);
+        link.acked(1, 3000);
+        assertEquals(link.getRttNanos(), -1);
+    }
+}
@@ -0,0 +1,90 @@
+package Metrics;
+
+import Controller.MessageType;
+import Controller.NetworkLoop;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class ServerMetricsTest {
+
+    @Test
+    public void testCounters() {
+        ServerMetrics metrics = new ServerMetrics();
+        metrics.received(MessageType.DIRECTION, 12);
+        metrics.received(MessageType.DIRECTION, 12);
+        metrics.sent(MessageType.DELTA, 30);
+        assertEquals((long) metrics.getDatagramsIn().get("DIRECTION"), 2);
+        assertEquals((long) metrics.getBytesIn().get("DIRECTION"), 24);
+        assertEquals((long) metrics.getDatagramsOut().get("DELTA"), 1);
+        assertEquals((long) metrics.getBytesOut().get("SNAPSHOT"), 0);
+    }
+
+    @Test
+    public void testTicksAndLinks() {
+        ServerMetrics metrics = new ServerMetrics();
+        metrics.tick(2000000, 300000);
+        metrics.tick(0, 500000);
+        assertEquals(metrics.getTicks(), 2);
+        assertEquals(metrics.getTickMaxMicros(), 500);
+        assertEquals(metrics.getJitterMaxMicros(), 2000);
+        LinkStats fast = new LinkStats();
+        fast.sent(1, 0);
+        fast.acked(1, 2000000);
+        LinkStats slow = new LinkStats();
+        slow.sent(1, 0);
+        slow.acked(1, 6000000);
+        metrics.setLinks(() -> Arrays.asList(fast, slow));
+        assertEquals(metrics.getSessions(), 2);
+        assertEquals(metrics.getMeanRttMillis(), 4, 1e-9);
+        assertEquals(metrics.getMaxRttMillis(), 6, 1e-9);
+        assertNotNull(metrics.summary());
+    }
+
+    @Test
+    public void testNetworkCounters() throws Exception {
+        ServerMetrics metrics = new ServerMetrics();
+        assertEquals(metrics.getSendDropped(), 0);
+        NetworkLoop network = new NetworkLoop(0, (address, packet) -> {
+        }, metrics);
+        metrics.setNetwork(network);
+        try {
+            //the loop is not started, so nothing is sent and the queue fills up, every queued datagram takes a fresh buffer
+            InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), 9);
+            for (int i = 0; i < 300; i++) {
+                network.send(address, ByteBuffer.wrap(new byte[]{1, 2, 3}));
+            }
+            assertEquals(metrics.getPoolHits(), 0);
+            assertEquals(metrics.getPoolMisses(), 256);
+            assertEquals(metrics.getPoolDropped(), 0);
+            assertEquals(metrics.getSendDropped(), 44);
+            assertTrue(metrics.summary().contains("dropped 44"));
+        } finally {
+            network.close();
+        }
+    }
+
+    @Test
+    public void testJmx() throws Exception {
+        ServerMetrics metrics = new ServerMetrics();
+        metrics.start(0);
+        try {
+            assertTrue(metrics.isRegistered());
+            metrics.tick(0, 1000);
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            assertEquals(server.getAttribute(new ObjectName("GameSnake:type=ServerMetrics"), "Ticks"), 1L);
+            assertEquals(server.getAttribute(new ObjectName("GameSnake:type=ServerMetrics"), "SendDropped"), 0L);
+        } finally {
+            metrics.stop();
+        }
+        assertFalse(metrics.isRegistered());
+    }
+}
@@ -0,0 +1,62 @@
+package Metrics;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TraceTest {
+
+    @Before
+    public void setup() {
+        Trace.clear();
+    }
+
+    @After
+    public void tearDown() {
+        Trace.setSampling(0);
+        Trace.clear();
+    }
+
+    @Test
+    public void testOffByDefault() {
+        Trace.setSampling(0);
+        assertFalse(Trace.isEnabled());
+        Trace.event(Trace.Kind.TICK, 1, 2);
+        assertEquals(Trace.dump(), "");
+    }
+
+    @Test
+    public void testDump() {
+        Trace.setSampling(1);
+        Trace.event(Trace.Kind.PACKET_IN, 11, 40);
+        Trace.event(Trace.Kind.TURN, 2, 7);
+        String[] lines = Trace.dump().split("\n");
+        assertEquals(lines.length, 2);
+        assertTrue(lines[0].endsWith(" PACKET_IN 11 40"));
+        assertTrue(lines[1].endsWith(" TURN 2 7"));
+    }
+
+    @Test
+    public void testRingKeepsLatest() {
+        Trace.setSampling(1);
+        for (int i = 0; i < 10000; i++) {
+            Trace.event(Trace.Kind.TICK, i, 0);
+        }
+        String[] lines = Trace.dump().split("\n");
+        assertEquals(lines.length, 4096);
+        assertTrue(lines[lines.length - 1].endsWith(" TICK 9999 0"));
+    }
+
+    @Test
+    public void testSampling() {
+        //one event in ten is kept on average
+        Trace.setSampling(10);
+        for (int i = 0; i < 2000; i++) {
+            Trace.event(Trace.Kind.TICK, i, 0);
+        }
+        int kept = Trace.dump().split("\n").length;
+        assertTrue(kept > 100 && kept < 300);
+    }
+}
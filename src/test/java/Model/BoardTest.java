@@ -0,0 +1,177 @@
+package Model;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class BoardTest {
+
+    private Board board;
+
+    @Before
+    public void setup(){
+        board = new Board(70, 70);
+    }
+
+    @Test
+    public void testOccupyAndVacate(){
+        assertFalse(board.isOccupied(3, 4));
+        board.occupy(3, 4);
+        assertTrue(board.isOccupied(3, 4));
+        assertFalse(board.isOccupied(4, 3));
+        board.occupy(69, 69);
+        assertTrue(board.isOccupied(69, 69));
+        board.vacate(3, 4);
+        assertFalse(board.isOccupied(3, 4));
+        assertTrue(board.isOccupied(69, 69));
+    }
+
+    @Test
+    public void testOutsideCellsAreIgnored(){
+        board.occupy(-1, 0);
+        board.occupy(0, 70);
+        assertFalse(board.isOccupied(-1, 0));
+        assertFalse(board.isOccupied(0, 70));
+        assertFalse(board.isInside(70, 0));
+        assertTrue(board.isInside(0, 69));
+    }
+
+    @Test
+    public void testSnakeKeepsBoardUpToDate(){
+        GameModel model = new GameModel();
+        model.setBoard(board);
+        model.initialiseSnake(3, 5, 5);
+        assertTrue(board.isOccupied(5, 5));
+        assertTrue(board.isOccupied(3, 5));
+        model.updateSnake(70, 70);
+        assertTrue(board.isOccupied(6, 5));
+        assertFalse(board.isOccupied(3, 5));
+        model.increaseLength();
+        model.updateSnake(70, 70);
+        assertTrue(board.isOccupied(4, 5));
+        assertTrue(board.isOccupied(7, 5));
+        assertFalse(model.isHit());
+    }
+
+    @Test
+    public void testSnakeHitsItself(){
+        GameModel model = new GameModel();
+        model.setBoard(board);
+        model.initialiseSnake(5, 10, 10);
+        model.setDirection(Direction.DOWN);
+        model.updateSnake(70, 70);
+        model.setDirection(Direction.LEFT);
+        model.updateSnake(70, 70);
+        assertFalse(model.isHit());
+        model.setDirection(Direction.UP);
+        model.updateSnake(70, 70);
+        assertTrue(model.isHit());
+    }
+
+    @Test
+    public void testSnakeMayFollowItsTail(){
+        GameModel model = new GameModel();
+        model.setBoard(board);
+        model.initialiseSnake(4, 10, 10);
+        model.setDirection(Direction.DOWN);
+        model.updateSnake(70, 70);
+        model.setDirection(Direction.LEFT);
+        model.updateSnake(70, 70);
+        model.setDirection(Direction.UP);
+        model.updateSnake(70, 70);
+        assertFalse(model.isHit());
+    }
+
+    @Test
+    public void testSnakesShareBoard(){
+        GameModel first = new GameModel();
+        GameModel second = new GameModel();
+        first.setBoard(board);
+        second.setBoard(board);
+        first.initialiseSnake(3, 10, 10);
+        second.initialiseSnake(3, 9, 11);
+        second.setDirection(Direction.UP);
+        second.updateSnake(70, 70);
+        assertTrue(second.isHit());
+    }
+
+    @Test
+    public void testFreeCells(){
+        Board small = new Board(3, 2);
+        assertEquals(small.getFreeCount(), 6);
+        small.occupy(1, 1);
+        small.occupy(1, 1);
+        assertEquals(small.getFreeCount(), 5);
+        small.vacate(0, 0);
+        assertEquals(small.getFreeCount(), 5);
+        //every free cell is handed out, an occupied one never
+        Random random = new Random(1);
+        Set<Integer> seen = new HashSet<>();
+        for (int i = 0; i < 500; i++) {
+            int cell = small.randomFreeCell(random);
+            assertFalse(small.isOccupied(GameModel.cellX(cell), GameModel.cellY(cell)));
+            seen.add(cell);
+        }
+        assertEquals(seen.size(), 5);
+        small.vacate(1, 1);
+        assertEquals(small.getFreeCount(), 6);
+    }
+
+    @Test
+    public void testFullBoard(){
+        Board small = new Board(2, 2);
+        small.occupy(0, 0);
+        small.occupy(0, 1);
+        small.occupy(1, 0);
+        assertEquals(small.randomFreeCell(new Random()), GameModel.pack(1, 1));
+        small.occupy(1, 1);
+        assertEquals(small.randomFreeCell(new Random()), -1);
+        assertEquals(small.freeCell(3), -1);
+    }
+
+    @Test
+    public void testConcurrentOccupyAndVacate() throws InterruptedException {
+        Board small = new Board(4, 4);
+        //threads of different arenas flip the same cells, the list must end up holding exactly the clear ones
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            int seed = t;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Random random = new Random(seed);
+                    for (int i = 0; i < 100000; i++) {
+                        if (random.nextBoolean()) {
+                            small.occupy(random.nextInt(2), random.nextInt(2));
+                        } else {
+                            small.vacate(random.nextInt(2), random.nextInt(2));
+                        }
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Set<Integer> listed = new HashSet<>();
+        for (int i = 0; i < small.getFreeCount(); i++) {
+            int cell = small.freeCell(i);
+            assertFalse(small.isOccupied(GameModel.cellX(cell), GameModel.cellY(cell)));
+            listed.add(cell);
+        }
+        int clear = 0;
+        for (int x = 0; x < 4; x++) {
+            for (int y = 0; y < 4; y++) {
+                clear += small.isOccupied(x, y) ? 0 : 1;
+            }
+        }
+        assertEquals(listed.size(), small.getFreeCount());
+        assertEquals(small.getFreeCount(), clear);
+    }
+}
@@ -4,8 +4,6 @@ import Controller.Level;
 import org.junit.Before;
 import org.junit.Test;
 
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Random;
 
 import static org.junit.Assert.*;
@@ -35,61 +33,56 @@ public class GameModelTest {
     @Test
     public void testInitSnake()
     {
-        gameModel.initialiseSnake(3, 10, 10, 10);
+        gameModel.initialiseSnake(3, 10, 10);
         gameModel.setScore(0);
         gameModel.setRan(new Random());
         assertEquals(gameModel.getLength(), 3);
         assertEquals(gameModel.getScore(),0);
-        assertNotNull(gameModel.getSnakeX().get(0));
-        assertNotNull(gameModel.getSnakeX().get(1));
-        assertNotNull(gameModel.getSnakeX().get(2));
-        assertNotNull(gameModel.getSnakeY().get(0));
-        assertNotNull(gameModel.getSnakeY().get(1));
-        assertNotNull(gameModel.getSnakeY().get(2));
+        assertEquals(gameModel.getX(0), 10);
+        assertEquals(gameModel.getX(1), 9);
+        assertEquals(gameModel.getX(2), 8);
+        assertEquals(gameModel.getY(0), 10);
+        assertEquals(gameModel.getY(1), 10);
+        assertEquals(gameModel.getY(2), 10);
+        assertEquals(gameModel.getTailX(), 8);
         assertNotNull(gameModel.getRan());
     }
 
     @Test
     public void testUpdateSnakePositive(){
-        ArrayList<Integer> snakeX = new ArrayList<>(Arrays.asList(Integer.valueOf(30),
-                Integer.valueOf(20), Integer.valueOf(10)));
-        ArrayList<Integer> snakeY = new ArrayList<>(Arrays.asList(Integer.valueOf(30),
-                Integer.valueOf(30), Integer.valueOf(30)));
-        gameModel.setSnakeX(snakeX);
-        gameModel.setSnakeY(snakeY);
-        gameModel.setLength(3);
-        gameModel.updateSnake(10, 150, 150);
-        assertEquals(gameModel.getSnakeX().get(2), Integer.valueOf(20));
-        assertEquals(gameModel.getSnakeX().get(1), Integer.valueOf(30));
-        assertEquals(gameModel.getSnakeX().get(0), Integer.valueOf(40));
-        assertEquals(gameModel.getSnakeY().get(0), Integer.valueOf(30));
-        assertEquals(gameModel.getSnakeY().get(1), Integer.valueOf(30));
-        assertEquals(gameModel.getSnakeY().get(2), Integer.valueOf(30));
+        gameModel.initialiseSnake(3, 3, 3);
+        gameModel.updateSnake(15, 15);
+        assertEquals(gameModel.getX(2), 2);
+        assertEquals(gameModel.getX(1), 3);
+        assertEquals(gameModel.getX(0), 4);
+        assertEquals(gameModel.getY(0), 3);
+        assertEquals(gameModel.getY(1), 3);
+        assertEquals(gameModel.getY(2), 3);
         gameModel.setDirection(Direction.UP);
         assertEquals(gameModel.getDirection(), Direction.UP);
-        gameModel.updateSnake(10, 150, 150);
-        assertEquals(gameModel.getSnakeX().get(2), Integer.valueOf(30));
-        assertEquals(gameModel.getSnakeX().get(1), Integer.valueOf(40));
-        assertEquals(gameModel.getSnakeX().get(0), Integer.valueOf(40));
-        assertEquals(gameModel.getSnakeY().get(0), Integer.valueOf(20));
-        assertEquals(gameModel.getSnakeY().get(1), Integer.valueOf(30));
-        assertEquals(gameModel.getSnakeY().get(2), Integer.valueOf(30));
+        gameModel.updateSnake(15, 15);
+        assertEquals(gameModel.getX(2), 3);
+        assertEquals(gameModel.getX(1), 4);
+        assertEquals(gameModel.getX(0), 4);
+        assertEquals(gameModel.getY(0), 2);
+        assertEquals(gameModel.getY(1), 3);
+        assertEquals(gameModel.getY(2), 3);
         gameModel.setDirection(Direction.LEFT);
-        gameModel.updateSnake(10, 150, 150);
-        assertEquals(gameModel.getSnakeX().get(2), Integer.valueOf(40));
-        assertEquals(gameModel.getSnakeX().get(1), Integer.valueOf(40));
-        assertEquals(gameModel.getSnakeX().get(0), Integer.valueOf(30));
-        assertEquals(gameModel.getSnakeY().get(0), Integer.valueOf(20));
-        assertEquals(gameModel.getSnakeY().get(1), Integer.valueOf(20));
-        assertEquals(gameModel.getSnakeY().get(2), Integer.valueOf(30));
+        gameModel.updateSnake(15, 15);
+        assertEquals(gameModel.getX(2), 4);
+        assertEquals(gameModel.getX(1), 4);
+        assertEquals(gameModel.getX(0), 3);
+        assertEquals(gameModel.getY(0), 2);
+        assertEquals(gameModel.getY(1), 2);
+        assertEquals(gameModel.getY(2), 3);
         gameModel.setDirection(Direction.DOWN);
-        gameModel.updateSnake(10, 150, 150);
-        assertEquals(gameModel.getSnakeX().get(2), Integer.valueOf(40));
-        assertEquals(gameModel.getSnakeX().get(1), Integer.valueOf(30));
-        assertEquals(gameModel.getSnakeX().get(0), Integer.valueOf(30));
-        assertEquals(gameModel.getSnakeY().get(0), Integer.valueOf(30));
-        assertEquals(gameModel.getSnakeY().get(1), Integer.valueOf(20));
-        assertEquals(gameModel.getSnakeY().get(2), Integer.valueOf(20));
+        gameModel.updateSnake(15, 15);
+        assertEquals(gameModel.getX(2), 4);
+        assertEquals(gameModel.getX(1), 3);
+        assertEquals(gameModel.getX(0), 3);
+        assertEquals(gameModel.getY(0), 3);
+        assertEquals(gameModel.getY(1), 2);
+        assertEquals(gameModel.getY(2), 2);
     }
 
     @Test
@@ -121,38 +114,56 @@ public class GameModelTest {
         assertEquals(gameModel.getScore(), 1);
     }
 
+    @Test
+    public void testIncreaseLengthKeepsTail(){
+        gameModel.initialiseSnake(3, 5, 5);
+        gameModel.increaseLength();
+        gameModel.updateSnake(15, 15);
+        assertEquals(gameModel.getLength(), 4);
+        assertEquals(gameModel.getX(0), 6);
+        assertEquals(gameModel.getX(1), 5);
+        assertEquals(gameModel.getX(2), 4);
+        assertEquals(gameModel.getX(3), 3);
+    }
+
+    @Test
+    public void testBodyGrowsAcrossWrap(){
+        gameModel.initialiseSnake(3, 3, 3);
+        //move enough times for the head to wrap around the initial buffer before growing
+        for (int i = 0; i < 10; i++) {
+            gameModel.updateSnake(100, 100);
+        }
+        for (int i = 0; i < 40; i++) {
+            gameModel.increaseLength();
+            gameModel.updateSnake(100, 100);
+        }
+        assertEquals(gameModel.getLength(), 43);
+        for (int i = 0; i < gameModel.getLength(); i++) {
+            assertEquals(gameModel.getX(i), 53 - i);
+            assertEquals(gameModel.getY(i), 3);
+        }
+    }
+
     @Test
     public void testUpdateSnakeNegative(){
-        ArrayList<Integer> snakeX = new ArrayList<>(Arrays.asList(Integer.valueOf(100),
-                Integer.valueOf(90), Integer.valueOf(80)));
-        ArrayList<Integer> snakeY = new ArrayList<>(Arrays.asList(Integer.valueOf(30),
-                Integer.valueOf(30), Integer.valueOf(30)));
-        gameModel.setSnakeX(snakeX);
-        gameModel.setSnakeY(snakeY);
-        gameModel.setLength(3);
+        gameModel.initialiseSnake(3, 9, 3);
         gameModel.setIsStart(true);
-        gameModel.updateSnake(10, 100, 100);
+        gameModel.updateSnake(10, 10);
         assertEquals(gameModel.getIsStart(),false);
         gameModel.setIsStart(true);
         gameModel.setDirection(Direction.LEFT);
-        snakeX = new ArrayList<>(Arrays.asList(Integer.valueOf(0),
-                Integer.valueOf(10), Integer.valueOf(20)));
-        gameModel.setSnakeX(snakeX);
-        gameModel.updateSnake(10, 100, 100);
+        gameModel.initialiseSnake(3, 0, 3);
+        gameModel.updateSnake(10, 10);
         assertEquals(gameModel.getIsStart(),false);
         gameModel.setIsStart(true);
         gameModel.setDirection(Direction.UP);
-        snakeY = new ArrayList<>(Arrays.asList(Integer.valueOf(0),
-                Integer.valueOf(10), Integer.valueOf(20)));
-        gameModel.setSnakeY(snakeY);
-        gameModel.updateSnake(10, 100, 100);
+        gameModel.initialiseSnake(3, 5, 0);
+        gameModel.updateSnake(10, 10);
         assertEquals(gameModel.getIsStart(),false);
         gameModel.setIsStart(true);
         gameModel.setDirection(Direction.DOWN);
-        snakeY = new ArrayList<>(Arrays.asList(Integer.valueOf(100),
-                Integer.valueOf(90), Integer.valueOf(80)));
-        gameModel.setSnakeY(snakeY);
-        gameModel.updateSnake(10, 100, 100);
+        gameModel.initialiseSnake(3, 5, 9);
+        gameModel.updateSnake(10, 10);
         assertEquals(gameModel.getIsStart(),false);
     }
-}
\ No newline at end of file
+}
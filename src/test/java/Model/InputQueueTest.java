@@ -0,0 +1,94 @@
+package Model;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.*;
+
+public class InputQueueTest {
+
+    @Test
+    public void testOfferAndPoll(){
+        InputQueue queue = new InputQueue(4);
+        assertTrue(queue.isEmpty());
+        assertEquals(queue.poll(), InputQueue.EMPTY);
+        assertTrue(queue.offer(Direction.LEFT, 5));
+        assertTrue(queue.offer(Direction.DOWN, 6));
+        long entry = queue.poll();
+        assertEquals(InputQueue.direction(entry), Direction.LEFT);
+        assertEquals(InputQueue.sequence(entry), 5);
+        entry = queue.poll();
+        assertEquals(InputQueue.direction(entry), Direction.DOWN);
+        assertEquals(InputQueue.sequence(entry), 6);
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testBounded(){
+        InputQueue queue = new InputQueue(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(queue.offer(Direction.UP, i));
+        }
+        assertFalse(queue.offer(Direction.UP, 4));
+        queue.poll();
+        assertTrue(queue.offer(Direction.RIGHT, 5));
+        queue.clear();
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testConcurrentProducers() throws InterruptedException {
+        //every turn offered by any thread is read exactly once, in the order of each producer
+        final InputQueue queue = new InputQueue(64);
+        final int producers = 4;
+        final int turns = 20000;
+        final CountDownLatch done = new CountDownLatch(producers);
+        for (int p = 0; p < producers; p++) {
+            final int producer = p;
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < turns; i++) {
+                        while (!queue.offer(Direction.values()[producer], i)) {
+                            Thread.yield();
+                        }
+                    }
+                    done.countDown();
+                }
+            }).start();
+        }
+        int[] expected = new int[producers];
+        int read = 0;
+        while (read < producers * turns) {
+            long entry = queue.poll();
+            if (entry == InputQueue.EMPTY) {
+                Thread.yield();
+                continue;
+            }
+            int producer = InputQueue.direction(entry).ordinal();
+            assertEquals(InputQueue.sequence(entry), expected[producer]);
+            expected[producer]++;
+            read++;
+        }
+        done.await();
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testModelDropsReversalsAndRepeats(){
+        GameModel model = new GameModel();
+        model.initialiseSnake(3, 5, 5);
+        model.queueTurn(Direction.LEFT, 1);//reversal of the first move
+        model.queueTurn(Direction.RIGHT, 2);//repeat
+        model.queueTurn(Direction.UP, 3);
+        model.queueTurn(Direction.LEFT, 4);
+        model.applyInputs();
+        assertEquals(model.getDirection(), Direction.UP);
+        assertEquals(model.getInputSequence(), 3);
+        model.setLastDirection(Direction.UP);
+        model.applyInputs();
+        assertEquals(model.getDirection(), Direction.LEFT);
+        assertEquals(model.getInputSequence(), 4);
+    }
+}
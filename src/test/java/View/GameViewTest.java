@@ -15,6 +15,7 @@ import org.junit.runner.RunWith;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 
 //@RunWith(JfxRunner.class)
 public class GameViewTest {
@@ -59,14 +60,73 @@ public class GameViewTest {
     @Test
     public void testPainting(){
         gameView.createSecondScene(10, 150, 15, 15);
-        GameView.paintSnake(3, 5, 5);
-        assertEquals(GameView.whole[5][5].getFill(), Color.YELLOW);
-        assertEquals(GameView.whole[4][5].getFill(), Color.BLUE);
-        assertEquals(GameView.whole[3][5].getFill(), Color.BLUE);
-        GameView.paintTail(5, 5);
-        assertEquals(GameView.whole[5][5].getFill(), Color.BLACK);
-        GameView.paintFood(5, 5);
-        assertEquals(GameView.whole[5][5].getFill(), Color.RED);
+        gameView.paintSnake(3, 5, 5);
+        gameView.flush();
+        assertEquals(gameView.getWhole()[5][5].getFill(), Color.YELLOW);
+        assertEquals(gameView.getWhole()[4][5].getFill(), Color.BLUE);
+        assertEquals(gameView.getWhole()[3][5].getFill(), Color.BLUE);
+        gameView.paintTail(5, 5);
+        gameView.flush();
+        assertEquals(gameView.getWhole()[5][5].getFill(), Color.BLACK);
+        gameView.paintFood(5, 5);
+        gameView.flush();
+        assertEquals(gameView.getWhole()[5][5].getFill(), Color.RED);
+    }
+
+    @Test
+    public void testPaintingIsBatched(){
+        gameView.createSecondScene(10, 150, 15, 15);
+        Object before = gameView.getWhole()[7][7].getFill();
+        //only the last state of a cell painted several times in one frame is applied
+        gameView.paintHead(7, 7);
+        gameView.paintBody(7, 7);
+        gameView.paintFood(8, 7);
+        assertEquals(gameView.getWhole()[7][7].getFill(), before);
+        gameView.flush();
+        assertEquals(gameView.getWhole()[7][7].getFill(), Color.BLUE);
+        assertEquals(gameView.getWhole()[8][7].getFill(), Color.RED);
+    }
+
+    @Test
+    public void testViewsPaintTheirOwnBoard(){
+        //a second view, such as a second shown room, marks and paints only its own cells
+        GameView other = new GameView(165, 150);
+        gameView.createSecondScene(10, 150, 15, 15);
+        other.createSecondScene(10, 150, 15, 15);
+        Object before = other.getWhole()[6][6].getFill();
+        gameView.paintHead(6, 6);
+        other.flush();
+        gameView.flush();
+        assertEquals(gameView.getWhole()[6][6].getFill(), Color.YELLOW);
+        assertEquals(other.getWhole()[6][6].getFill(), before);
+    }
+
+    @Test
+    public void testTextsFollowThePulse(){
+        gameView.createSecondScene(10, 150, 15, 15);
+        //only the last score reported before the pulse is shown
+        gameView.showScore(3);
+        gameView.showScore(4);
+        assertEquals(gameView.getCurrentScoreText().getText(), "Current Score: 0");
+        gameView.flushTexts();
+        assertEquals(gameView.getCurrentScoreText().getText(), "Current score: 4");
+    }
+
+    @Test
+    public void testCanvasPainting(){
+        gameView.setBoardStyle("Canvas");
+        gameView.createSecondScene(10, 150, 15, 200);
+        assertNull(gameView.getWhole());
+        CanvasRenderer canvas = (CanvasRenderer) gameView.getBoardRenderer();
+        gameView.paintSnake(3, 150, 150);
+        gameView.paintFood(199, 199);
+        gameView.flush();
+        assertEquals(canvas.getState(150, 150), DirtyCells.HEAD);
+        assertEquals(canvas.getState(149, 150), DirtyCells.BODY);
+        assertEquals(canvas.getState(199, 199), DirtyCells.FOOD);
+        gameView.paintTail(148, 150);
+        gameView.flush();
+        assertEquals(canvas.getState(148, 150), DirtyCells.EMPTY);
     }
 
     @Test